@@ -1,23 +1,137 @@
 /**
  * This class starts the application and handles the command-line interface
  * running an interactive menu system for users to manage library resources.
+ *
+ * Options:
+ *   --serve [port]   run the network service instead of the menu
+ *   --events file    append every library mutation to the given file
+ *   --fines file     load fine rates by category from a properties file
+ *   --loan-limit n   the most books a member may have out at once
  */
 package librarysystem;
 
 import librarysystem.controllers.LibraryController;
+import librarysystem.events.FileEventSubscriber;
+import librarysystem.server.LibraryServer;
 import librarysystem.views.LibraryView;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+
 public class Main {
-    public static void main(String[] args) {
+    private static final int DEFAULT_PORT = 7070;
+    private static final String USAGE =
+            "Usage: Main [--serve [port]] [--events file] [--fines file] [--loan-limit n]";
+
+    public static void main(String[] args) throws IOException {
         System.out.println("=== Library Management System ===");
         System.out.println("Starting application...");
 
+        boolean serve = false;
+        int port = DEFAULT_PORT;
+        Path eventsFile = null;
+        Path finesFile = null;
+        Integer loanLimit = null;
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--serve":
+                        serve = true;
+                        if (hasValue(args, i)) {
+                            port = number(args[i], args[++i], 0, 65535);
+                        }
+                        break;
+                    case "--events":
+                        eventsFile = Path.of(value(args, i++));
+                        break;
+                    case "--fines":
+                        finesFile = Path.of(value(args, i++));
+                        break;
+                    case "--loan-limit":
+                        loanLimit = number(args[i], value(args, i++), 0, Integer.MAX_VALUE);
+                        break;
+                    default:
+                        System.out.println("Ignoring unknown option: " + args[i]);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            System.out.println(USAGE);
+            return;
+        }
+
         LibraryController controller = new LibraryController(new LibraryView());
 
         controller.addSampleData();
 
-        controller.runMenu();
+        if (finesFile != null) {
+            Properties rates = new Properties();
+            try (Reader reader = Files.newBufferedReader(finesFile)) {
+                rates.load(reader);
+            }
+            controller.getFineSchedule().load(rates);
+        }
+        if (loanLimit != null) {
+            controller.setDefaultLoanLimit(loanLimit);
+        }
+
+        FileEventSubscriber eventLog = null;
+        if (eventsFile != null) {
+            eventLog = new FileEventSubscriber(controller.getEventBus(), eventsFile);
+        }
+
+        try {
+            if (serve) {
+                try (LibraryServer server = new LibraryServer(controller, port)) {
+                    System.out.println("Library service listening on port " + server.getPort());
+                    server.serve();
+                }
+            } else {
+                controller.runMenu();
+            }
+        } finally {
+            if (eventLog != null) {
+                eventLog.close();
+            }
+        }
 
         System.out.println("Thank you for using Library Management System!");
     }
-}
\ No newline at end of file
+
+    /**
+     * Check that the option at the given index is followed by a value
+     */
+    private static boolean hasValue(String[] args, int i) {
+        return i + 1 < args.length && !args[i + 1].startsWith("--");
+    }
+
+    /**
+     * Get the value following the option at the given index
+     */
+    private static String value(String[] args, int i) {
+        if (!hasValue(args, i)) {
+            throw new IllegalArgumentException("Missing value for " + args[i]);
+        }
+        return args[i + 1];
+    }
+
+    /**
+     * Parse an option's value as a whole number within the given bounds
+     */
+    private static int number(String option, String value, int min, int max) {
+        try {
+            int number = Integer.parseInt(value);
+            if (number >= min && number <= max) {
+                return number;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below with the bounds
+        }
+        throw new IllegalArgumentException(option + " expects a number from " + min
+                + (max == Integer.MAX_VALUE ? " up" : " to " + max) + ", not " + value);
+    }
+}
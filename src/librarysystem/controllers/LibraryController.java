@@ -4,41 +4,97 @@
  */
 package librarysystem.controllers;
 
+import librarysystem.events.EventBus;
+import librarysystem.events.EventType;
+import librarysystem.export.ExportDataset;
+import librarysystem.export.LibraryExporter;
+import librarysystem.fines.*;
+import librarysystem.index.CoBorrowIndex;
+import librarysystem.index.LongIntHashMap;
+import librarysystem.index.MemberIndex;
+import librarysystem.index.MemberLoanIndex;
+import librarysystem.index.PrefixIndex;
 import librarysystem.models.Book;
 import librarysystem.models.Member;
 import librarysystem.models.BookLoan;
+import librarysystem.models.Isbn;
+import librarysystem.query.CatalogStatistics;
+import librarysystem.query.QueryNode;
+import librarysystem.query.QueryParser;
+import librarysystem.query.QueryPlan;
+import librarysystem.query.QueryPlanner;
+import librarysystem.storage.BookRecord;
+import librarysystem.storage.LibrarySnapshot;
+import librarysystem.storage.LoanLog;
+import librarysystem.storage.OffHeapCatalog;
 import librarysystem.views.LibraryView;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.function.Consumer;
 import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 
 public class LibraryController {
-    private List<Book> bookCollection;
-    private List<Member> memberList;
-    private List<BookLoan> loanRecords;
+    private static final int SUGGESTION_LIMIT = 5;
+    private static final int FINES_SHOWN = 20;
+
+    // Book and member records live off-heap and are copied out on lookup
+    private OffHeapCatalog catalog;
+    private LoanLog loanLog;
+    // Open loans keyed by packed ISBN, as rows of the open loan table
+    private LongIntHashMap activeLoans;
+    private final OpenLoanTable openLoans;
+    // Each member's loans by issue date, with open-loan counts for the limit check
+    private final MemberLoanIndex memberLoans;
+    private final FineSchedule fineSchedule;
+    private final FinesEngine finesEngine;
+    // Bumped once per change, after the change is fully applied; snapshots read at this version
+    private volatile long version;
+    private final EventBus eventBus;
+    private final PrefixIndex titleIndex;
+    private final PrefixIndex authorIndex;
+    private final PrefixIndex memberNameIndex;
+    private final MemberIndex memberIndex;
+    private final CoBorrowIndex coBorrowIndex;
+    private final CatalogStatistics statistics;
+    private final QueryPlanner queryPlanner;
     private LibraryView view;
     private Scanner scanner;
 
     public LibraryController(LibraryView view) {
-        this.bookCollection = new ArrayList<>();
-        this.memberList = new ArrayList<>();
-        this.loanRecords = new ArrayList<>();
+        this.catalog = new OffHeapCatalog();
+        this.loanLog = new LoanLog(catalog);
+        this.activeLoans = new LongIntHashMap();
+        this.openLoans = new OpenLoanTable();
+        this.memberLoans = new MemberLoanIndex();
+        this.fineSchedule = new FineSchedule();
+        this.finesEngine = new FinesEngine(fineSchedule);
+        this.eventBus = new EventBus();
+        this.titleIndex = new PrefixIndex();
+        this.authorIndex = new PrefixIndex();
+        this.memberNameIndex = new PrefixIndex();
+        this.memberIndex = new MemberIndex();
+        this.statistics = new CatalogStatistics(titleIndex, authorIndex);
+        this.queryPlanner = new QueryPlanner();
+        this.coBorrowIndex = new CoBorrowIndex();
         this.view = view;
         this.scanner = new Scanner(System.in);
     }
 
 
-    public void addSampleData() {
-        bookCollection.add(new Book("1001", "The Fall of the House of Usher and Other Writings", "Edgar Allan Poe", "Fiction", 2003));
-        bookCollection.add(new Book("1002", "Data Communications and Networking", "Behrouz A. Forouzan", "Technical", 2006));
-        bookCollection.add(new Book("1003", "War and Peace", "Leo Tolstoy", "Historical Fiction", 1867));
-        bookCollection.add(new Book("1004", "Operating System Concepts", "Abraham Silberschatz", "Technical", 1998));
-        bookCollection.add(new Book("1005", "War! What Is It Good For?", "Ian Morris", "History", 2014));
+    public synchronized void addSampleData() {
+        addBook(new Book("978-0-14-143981-5", "The Fall of the House of Usher and Other Writings", "Edgar Allan Poe", "Fiction", 2003));
+        addBook(new Book("978-0-07-296775-3", "Data Communications and Networking", "Behrouz A. Forouzan", "Technical", 2006));
+        addBook(new Book("978-0-14-044793-4", "War and Peace", "Leo Tolstoy", "Historical Fiction", 1867));
+        addBook(new Book("978-0-471-69466-3", "Operating System Concepts", "Abraham Silberschatz", "Technical", 1998));
+        addBook(new Book("978-0-374-28600-2", "War! What Is It Good For?", "Ian Morris", "History", 2014));
 
         // Add sample members
-        memberList.add(new Member("M001", "Sarthak Rawat", "sarthakrawat525@gmail.com", "123-1234-123"));
-        memberList.add(new Member("M002", "Shogun", "shogun@gmail.com", "555-5555-555"));
-        memberList.add(new Member("M003", "Sample User", "sample@gmail.com", "987-9876-987"));
+        addMember(new Member("M001", "Sarthak Rawat", "sarthakrawat525@gmail.com", "123-1234-123"));
+        addMember(new Member("M002", "Shogun", "shogun@gmail.com", "555-5555-555"));
+        addMember(new Member("M003", "Sample User", "sample@gmail.com", "987-9876-987"));
     }
 
     /**
@@ -65,6 +121,9 @@ public class LibraryController {
                     searchMenu();
                     break;
                 case 5:
+                    exportData();
+                    break;
+                case 6:
                     exit = true;
                     break;
                 default:
@@ -152,6 +211,15 @@ public class LibraryController {
                     listAllLoans();
                     break;
                 case 4:
+                    viewFines();
+                    break;
+                case 5:
+                    viewMemberLoanHistory();
+                    break;
+                case 6:
+                    setMemberLoanLimit();
+                    break;
+                case 7:
                     back = true;
                     break;
                 default:
@@ -181,6 +249,18 @@ public class LibraryController {
                     searchMemberById();
                     break;
                 case 4:
+                    findMemberByContact();
+                    break;
+                case 5:
+                    suggestCompletions();
+                    break;
+                case 6:
+                    queryBooks();
+                    break;
+                case 7:
+                    showAlsoBorrowed();
+                    break;
+                case 8:
                     back = true;
                     break;
                 default:
@@ -196,9 +276,13 @@ public class LibraryController {
         view.displayMessage("\n=== Add New Book ===");
 
         String isbn = getInput("Enter ISBN: ");
+        if (Isbn.toKey(isbn) < 0) {
+            view.displayMessage("Invalid ISBN! Enter 10 or 13 digits with a correct check digit.");
+            return;
+        }
 
-        // Check if book with ISBN already exists
-        if (findBookByISBN(isbn) != null) {
+        // Check if book with ISBN already exists, however it was written
+        if (getBook(isbn) != null) {
             view.displayMessage("A book with this ISBN already exists!");
             return;
         }
@@ -208,10 +292,12 @@ public class LibraryController {
         String category = getInput("Enter Category: ");
         int year = getIntInput("Enter Publication Year: ");
 
-        Book newBook = new Book(isbn, title, author, category, year);
-        bookCollection.add(newBook);
-
-        view.displayMessage("Book added successfully!");
+        try {
+            addBook(new Book(isbn, title, author, category, year));
+            view.displayMessage("Book added successfully!");
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            view.displayMessage(e.getMessage());
+        }
     }
 
     /**
@@ -221,22 +307,12 @@ public class LibraryController {
         view.displayMessage("\n=== Remove Book ===");
         String isbn = getInput("Enter ISBN of book to remove: ");
 
-        Book bookToRemove = findBookByISBN(isbn);
-        if (bookToRemove == null) {
-            view.displayMessage("Book not found!");
-            return;
-        }
-
-        // Check if book is currently loaned out
-        for (BookLoan loan : loanRecords) {
-            if (loan.getBook().getIsbn().equals(isbn) && loan.getReturnDate() == null) {
-                view.displayMessage("Cannot remove book - it is currently loaned out!");
-                return;
-            }
+        try {
+            removeBook(isbn);
+            view.displayMessage("Book removed successfully!");
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            view.displayMessage(e.getMessage());
         }
-
-        bookCollection.remove(bookToRemove);
-        view.displayMessage("Book removed successfully!");
     }
 
     /**
@@ -245,15 +321,12 @@ public class LibraryController {
     private void listAllBooks() {
         view.displayMessage("\n=== All Books ===");
 
-        if (bookCollection.isEmpty()) {
+        List<Book> sortedBooks = getAllBooks();
+        if (sortedBooks.isEmpty()) {
             view.displayMessage("No books in the library.");
             return;
         }
 
-        // Sort books by title
-        List<Book> sortedBooks = new ArrayList<>(bookCollection);
-        Collections.sort(sortedBooks);
-
         view.displayBooks(sortedBooks);
     }
 
@@ -266,7 +339,7 @@ public class LibraryController {
         String id = getInput("Enter Member ID: ");
 
         // Check if member with ID already exists
-        if (findMemberById(id) != null) {
+        if (getMember(id) != null) {
             view.displayMessage("A member with this ID already exists!");
             return;
         }
@@ -275,10 +348,12 @@ public class LibraryController {
         String email = getInput("Enter Email: ");
         String phone = getInput("Enter Phone: ");
 
-        Member newMember = new Member(id, name, email, phone);
-        memberList.add(newMember);
-
-        view.displayMessage("Member added successfully!");
+        try {
+            addMember(new Member(id, name, email, phone));
+            view.displayMessage("Member added successfully!");
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            view.displayMessage(e.getMessage());
+        }
     }
 
     /**
@@ -288,22 +363,12 @@ public class LibraryController {
         view.displayMessage("\n=== Remove Member ===");
         String id = getInput("Enter ID of member to remove: ");
 
-        Member memberToRemove = findMemberById(id);
-        if (memberToRemove == null) {
-            view.displayMessage("Member not found!");
-            return;
-        }
-
-        // Check if member has any active loans
-        for (BookLoan loan : loanRecords) {
-            if (loan.getMember().getId().equals(id) && loan.getReturnDate() == null) {
-                view.displayMessage("Cannot remove member - they have books checked out!");
-                return;
-            }
+        try {
+            removeMember(id);
+            view.displayMessage("Member removed successfully!");
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            view.displayMessage(e.getMessage());
         }
-
-        memberList.remove(memberToRemove);
-        view.displayMessage("Member removed successfully!");
     }
 
     /**
@@ -312,12 +377,13 @@ public class LibraryController {
     private void listAllMembers() {
         view.displayMessage("\n=== All Members ===");
 
-        if (memberList.isEmpty()) {
+        List<Member> members = getAllMembers();
+        if (members.isEmpty()) {
             view.displayMessage("No members registered.");
             return;
         }
 
-        view.displayMembers(memberList);
+        view.displayMembers(members);
     }
 
     /**
@@ -327,34 +393,19 @@ public class LibraryController {
         view.displayMessage("\n=== Issue Book ===");
 
         String memberId = getInput("Enter Member ID: ");
-        Member member = findMemberById(memberId);
-
-        if (member == null) {
+        if (getMember(memberId) == null) {
             view.displayMessage("Member not found!");
             return;
         }
 
         String isbn = getInput("Enter Book ISBN: ");
-        Book book = findBookByISBN(isbn);
-
-        if (book == null) {
-            view.displayMessage("Book not found!");
-            return;
-        }
 
-        // Check if book is already loaned out
-        for (BookLoan loan : loanRecords) {
-            if (loan.getBook().getIsbn().equals(isbn) && loan.getReturnDate() == null) {
-                view.displayMessage("This book is already checked out!");
-                return;
-            }
+        try {
+            issueBook(memberId, isbn);
+            view.displayMessage("Book issued successfully!");
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            view.displayMessage(e.getMessage());
         }
-
-        // Create new loan record
-        BookLoan loan = new BookLoan(book, member, LocalDate.now());
-        loanRecords.add(loan);
-
-        view.displayMessage("Book issued successfully!");
     }
 
     /**
@@ -365,44 +416,114 @@ public class LibraryController {
 
         String isbn = getInput("Enter Book ISBN: ");
 
-        // Find the active loan for this book
-        BookLoan loanToReturn = null;
-        for (BookLoan loan : loanRecords) {
-            if (loan.getBook().getIsbn().equals(isbn) && loan.getReturnDate() == null) {
-                loanToReturn = loan;
-                break;
-            }
+        try {
+            returnBook(isbn);
+            view.displayMessage("Book returned successfully!");
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            view.displayMessage(e.getMessage());
+        }
+    }
+
+    /**
+     * Display all active loans
+     */
+    private void listAllLoans() {
+        view.displayMessage("\n=== All Current Loans ===");
+
+        List<BookLoan> activeLoans = getActiveLoans();
+        if (activeLoans.isEmpty()) {
+            view.displayMessage("No active loans.");
+            return;
         }
 
-        if (loanToReturn == null) {
-            view.displayMessage("No active loan found for this book!");
+        view.displayLoans(activeLoans);
+    }
+
+    /**
+     * Assess overdue fines on all active loans as of today
+     */
+    private void viewFines() {
+        view.displayMessage("\n=== Overdue Fines ===");
+
+        FineReport report = assessFines(LocalDate.now());
+        if (report.getOverdueCount() == 0) {
+            view.displayMessage("No overdue loans.");
             return;
         }
 
-        // Process the return
-        loanToReturn.setReturnDate(LocalDate.now());
-        view.displayMessage("Book returned successfully!");
+        view.displayMessage(String.format("%d of %d active loans are overdue, owing %s in total.",
+                report.getOverdueCount(), report.getLoanCount(), view.formatCents(report.getTotalCents())));
+        view.displayFines(getLargestFines(report, FINES_SHOWN));
     }
 
     /**
-     * Display all active loans
+     * Display a member's loans issued between two dates
      */
-    private void listAllLoans() {
-        view.displayMessage("\n=== All Current Loans ===");
+    private void viewMemberLoanHistory() {
+        view.displayMessage("\n=== Member Loan History ===");
 
-        List<BookLoan> activeLoans = new ArrayList<>();
-        for (BookLoan loan : loanRecords) {
-            if (loan.getReturnDate() == null) {
-                activeLoans.add(loan);
+        String memberId = getInput("Enter Member ID: ");
+        if (getMember(memberId) == null) {
+            view.displayMessage("Member not found!");
+            return;
+        }
+
+        LocalDate from = getDateInput("Issued from (YYYY-MM-DD, blank for the beginning): ");
+        LocalDate to = getDateInput("Issued until (YYYY-MM-DD, blank for today): ");
+        List<BookLoan> loans = getLoanHistory(memberId, from, to == null ? LocalDate.now() : to);
+        if (loans.isEmpty()) {
+            view.displayMessage("No loans in that period.");
+        } else {
+            view.displayLoans(loans);
+        }
+
+        int limit = getLoanLimit(memberId);
+        view.displayMessage("Books out now: " + getActiveLoans(memberId).size()
+                + (limit == MemberLoanIndex.NO_LIMIT ? "" : " of " + limit));
+    }
+
+    /**
+     * Give a member their own limit on books out at once
+     */
+    private void setMemberLoanLimit() {
+        view.displayMessage("\n=== Set Member Loan Limit ===");
+
+        String memberId = getInput("Enter Member ID: ");
+        Integer limit = getOptionalIntInput("Enter the most books this member may have out (blank for the default): ");
+
+        try {
+            if (limit == null) {
+                clearLoanLimit(memberId);
+            } else {
+                setLoanLimit(memberId, limit);
             }
+            view.displayMessage("Loan limit updated.");
+        } catch (IllegalArgumentException e) {
+            view.displayMessage(e.getMessage());
         }
+    }
 
-        if (activeLoans.isEmpty()) {
-            view.displayMessage("No active loans.");
+    /**
+     * Export a dataset to a CSV or JSON Lines file
+     */
+    private void exportData() {
+        view.displayExportMenu();
+        int choice = getIntInput("Enter your choice: ");
+        if (choice < 1 || choice > ExportDataset.values().length) {
+            view.displayMessage("Invalid option. Please try again.");
             return;
         }
 
-        view.displayLoans(activeLoans);
+        ExportDataset dataset = ExportDataset.values()[choice - 1];
+        String fileName = getInput("Enter file name (.csv or .jsonl, add .gz to compress): ");
+        try {
+            long rows = export(dataset, Path.of(fileName));
+            view.displayMessage("Exported " + rows + " records to " + fileName);
+        } catch (IOException e) {
+            view.displayMessage("Export failed: " + e.getMessage());
+        } catch (IllegalArgumentException e) {
+            view.displayMessage(e.getMessage());
+        }
     }
 
     /**
@@ -411,15 +532,9 @@ public class LibraryController {
     private void searchBookByTitle() {
         view.displayMessage("\n=== Search Book by Title ===");
 
-        String title = getInput("Enter title to search for: ").toLowerCase();
-
-        List<Book> foundBooks = new ArrayList<>();
-        for (Book book : bookCollection) {
-            if (book.getTitle().toLowerCase().contains(title)) {
-                foundBooks.add(book);
-            }
-        }
+        String title = getInput("Enter title to search for: ");
 
+        List<Book> foundBooks = searchBooksByTitle(title);
         if (foundBooks.isEmpty()) {
             view.displayMessage("No books found matching that title.");
             return;
@@ -434,15 +549,9 @@ public class LibraryController {
     private void searchBookByAuthor() {
         view.displayMessage("\n=== Search Book by Author ===");
 
-        String author = getInput("Enter author to search for: ").toLowerCase();
-
-        List<Book> foundBooks = new ArrayList<>();
-        for (Book book : bookCollection) {
-            if (book.getAuthor().toLowerCase().contains(author)) {
-                foundBooks.add(book);
-            }
-        }
+        String author = getInput("Enter author to search for: ");
 
+        List<Book> foundBooks = searchBooksByAuthor(author);
         if (foundBooks.isEmpty()) {
             view.displayMessage("No books found by that author.");
             return;
@@ -451,6 +560,31 @@ public class LibraryController {
         view.displayBooks(foundBooks);
     }
 
+    /**
+     * Run a book query, or show its plan when prefixed with "explain"
+     */
+    private void queryBooks() {
+        view.displayMessage("\n=== Query Books ===");
+        view.displayMessage("e.g. author:tolstoy AND year<1900 AND available (prefix with explain to see the plan)");
+
+        String text = getInput("Enter query: ").trim();
+        try {
+            if (text.regionMatches(true, 0, "explain ", 0, 8)) {
+                view.displayMessage(explainQuery(text.substring(8)));
+                return;
+            }
+
+            List<Book> foundBooks = query(text);
+            if (foundBooks.isEmpty()) {
+                view.displayMessage("No books match that query.");
+                return;
+            }
+            view.displayBooks(foundBooks);
+        } catch (IllegalArgumentException e) {
+            view.displayMessage(e.getMessage());
+        }
+    }
+
     /**
      * Search for a member by ID
      */
@@ -458,7 +592,7 @@ public class LibraryController {
         view.displayMessage("\n=== Search Member by ID ===");
 
         String id = getInput("Enter member ID: ");
-        Member member = findMemberById(id);
+        Member member = getMember(id);
 
         if (member == null) {
             view.displayMessage("Member not found!");
@@ -468,35 +602,602 @@ public class LibraryController {
         view.displayMember(member);
 
         // Display any active loans for this member
-        List<BookLoan> activeLoans = new ArrayList<>();
-        for (BookLoan loan : loanRecords) {
-            if (loan.getMember().getId().equals(id) && loan.getReturnDate() == null) {
-                activeLoans.add(loan);
-            }
-        }
-
+        List<BookLoan> activeLoans = getActiveLoans(id);
         if (!activeLoans.isEmpty()) {
             view.displayMessage("\nActive Loans:");
             view.displayLoans(activeLoans);
         }
     }
 
-    private Book findBookByISBN(String isbn) {
-        for (Book book : bookCollection) {
-            if (book.getIsbn().equals(isbn)) {
-                return book;
+    /**
+     * Find members by email, phone number or name
+     */
+    private void findMemberByContact() {
+        view.displayMessage("\n=== Find Member by Email, Phone or Name ===");
+
+        String text = getInput("Enter email, phone or name: ");
+
+        List<Member> foundMembers;
+        if (text.contains("@")) {
+            Member member = findMemberByEmail(text);
+            foundMembers = member == null ? Collections.emptyList() : List.of(member);
+        } else if (!MemberIndex.normalizePhone(text).isEmpty()
+                && MemberIndex.tokenizeName(text.replaceAll("[0-9]", "")).isEmpty()) {
+            foundMembers = findMembersByPhone(text);
+        } else {
+            foundMembers = findMembersByName(text);
+        }
+
+        if (foundMembers.isEmpty()) {
+            view.displayMessage("No members found.");
+            return;
+        }
+
+        view.displayMembers(foundMembers);
+    }
+
+    /**
+     * Suggest titles, authors and member names for a partial entry
+     */
+    private void suggestCompletions() {
+        view.displayMessage("\n=== Autocomplete ===");
+
+        String prefix = getInput("Enter the start of a title, author or member name: ");
+
+        List<String> titles = suggestTitles(prefix, SUGGESTION_LIMIT);
+        List<String> authors = suggestAuthors(prefix, SUGGESTION_LIMIT);
+        List<String> names = suggestMemberNames(prefix, SUGGESTION_LIMIT);
+
+        if (titles.isEmpty() && authors.isEmpty() && names.isEmpty()) {
+            view.displayMessage("No suggestions found.");
+            return;
+        }
+
+        view.displaySuggestions("Titles", titles);
+        view.displaySuggestions("Authors", authors);
+        view.displaySuggestions("Members", names);
+    }
+
+    /**
+     * Show the books most often borrowed by members who borrowed a given book
+     */
+    private void showAlsoBorrowed() {
+        view.displayMessage("\n=== Members Who Borrowed This Also Borrowed ===");
+
+        String isbn = getInput("Enter ISBN: ");
+        if (getBook(isbn) == null) {
+            view.displayMessage("Book not found!");
+            return;
+        }
+
+        List<Book> books = recommendBooks(isbn, SUGGESTION_LIMIT);
+        if (books.isEmpty()) {
+            view.displayMessage("No other books have been borrowed by members who borrowed this one.");
+            return;
+        }
+
+        view.displayBooks(books);
+    }
+
+    /*
+     * The operations below hold the library state shared by the interactive
+     * menu and the network service. They are synchronized on the controller
+     * so that any number of client threads can call them concurrently, and
+     * report failures as exceptions carrying the message shown to the user.
+     *
+     * Every change is stamped with the next library version. Listings and
+     * searches do not take the lock: they scan a snapshot at the last
+     * completed version, so a long search never holds up the issue desk.
+     */
+
+    /**
+     * Add a book, rejecting duplicate ISBNs
+     */
+    public synchronized void addBook(Book book) {
+        long next = version + 1;
+        if (!catalog.addBook(book, next)) {
+            throw new IllegalArgumentException("A book with this ISBN already exists!");
+        }
+        titleIndex.add(book.getTitle());
+        authorIndex.add(book.getAuthor());
+        statistics.bookAdded(book);
+        eventBus.publish(EventType.BOOK_ADDED, book.getIsbn(), null);
+        version = next;
+    }
+
+    /**
+     * Remove a book that is not currently loaned out
+     */
+    public synchronized Book removeBook(String isbn) {
+        long isbnKey = Isbn.toKey(isbn);
+        Book bookToRemove = findBook(isbnKey);
+        if (bookToRemove == null) {
+            throw new IllegalArgumentException("Book not found!");
+        }
+
+        // Check if book is currently loaned out
+        if (activeLoans.containsKey(isbnKey)) {
+            throw new IllegalStateException("Cannot remove book - it is currently loaned out!");
+        }
+
+        long next = version + 1;
+        catalog.removeBook(isbnKey, next);
+        titleIndex.remove(bookToRemove.getTitle());
+        authorIndex.remove(bookToRemove.getAuthor());
+        statistics.bookRemoved(bookToRemove);
+        coBorrowIndex.removeBook(isbnKey);
+        eventBus.publish(EventType.BOOK_REMOVED, bookToRemove.getIsbn(), null);
+        version = next;
+        return bookToRemove;
+    }
+
+    /**
+     * Get a copy of all books sorted by title
+     */
+    public List<Book> getAllBooks() {
+        List<Book> sortedBooks = new ArrayList<>();
+        snapshot().forEachBook(record -> sortedBooks.add(record.toBook()));
+        Collections.sort(sortedBooks);
+        return sortedBooks;
+    }
+
+    /**
+     * Get a book by ISBN, or null if there is none
+     */
+    public synchronized Book getBook(String isbn) {
+        return findBook(Isbn.toKey(isbn));
+    }
+
+    /**
+     * Register a member, rejecting duplicate IDs and emails
+     */
+    public synchronized void addMember(Member member) {
+        if (findMemberById(member.getId()) != null) {
+            throw new IllegalArgumentException("A member with this ID already exists!");
+        }
+        memberIndex.checkUnique(member);
+
+        long next = version + 1;
+        catalog.addMember(member, next);
+        memberIndex.add(member);
+        memberNameIndex.add(member.getName());
+        eventBus.publish(EventType.MEMBER_ADDED, null, member.getId());
+        version = next;
+    }
+
+    /**
+     * Remove a member who has no books checked out
+     */
+    public synchronized Member removeMember(String id) {
+        Member memberToRemove = findMemberById(id);
+        if (memberToRemove == null) {
+            throw new IllegalArgumentException("Member not found!");
+        }
+
+        // Check if member has any active loans
+        if (memberLoans.getOpenCount(id) > 0) {
+            throw new IllegalStateException("Cannot remove member - they have books checked out!");
+        }
+
+        long next = version + 1;
+        catalog.removeMember(id, next);
+        memberIndex.remove(memberToRemove);
+        memberNameIndex.remove(memberToRemove.getName());
+        coBorrowIndex.removeMember(id);
+        memberLoans.removeMember(id);
+        eventBus.publish(EventType.MEMBER_REMOVED, null, memberToRemove.getId());
+        version = next;
+        return memberToRemove;
+    }
+
+    /**
+     * Get a copy of all registered members
+     */
+    public List<Member> getAllMembers() {
+        List<Member> members = new ArrayList<>();
+        snapshot().forEachMember(record -> members.add(record.toMember()));
+        return members;
+    }
+
+    /**
+     * Get a member by ID, or null if there is none
+     */
+    public synchronized Member getMember(String id) {
+        return findMemberById(id);
+    }
+
+    /**
+     * Get the member with this email, ignoring case, or null if there is none
+     */
+    public synchronized Member findMemberByEmail(String email) {
+        String id = memberIndex.findByEmail(email);
+        return id == null ? null : findMemberById(id);
+    }
+
+    /**
+     * Get members whose phone number has the same digits
+     */
+    public synchronized List<Member> findMembersByPhone(String phone) {
+        return membersSortedByName(memberIndex.findByPhone(phone));
+    }
+
+    /**
+     * Get members whose name contains every word given
+     */
+    public synchronized List<Member> findMembersByName(String name) {
+        return membersSortedByName(memberIndex.findByName(name));
+    }
+
+    /**
+     * Lend a book to a member, starting today
+     */
+    public synchronized BookLoan issueBook(String memberId, String isbn) {
+        return issueBook(memberId, isbn, LocalDate.now());
+    }
+
+    /**
+     * Lend a book to a member from the given date, e.g. when replaying loan history
+     */
+    public synchronized BookLoan issueBook(String memberId, String isbn, LocalDate issueDate) {
+        long memberAddress = catalog.findMemberAddress(memberId);
+        if (memberAddress < 0) {
+            throw new IllegalArgumentException("Member not found!");
+        }
+
+        long isbnKey = Isbn.toKey(isbn);
+        long bookAddress = isbnKey < 0 ? -1 : catalog.findBookAddress(isbnKey);
+        if (bookAddress < 0) {
+            throw new IllegalArgumentException("Book not found!");
+        }
+
+        // Check if book is already loaned out
+        if (activeLoans.containsKey(isbnKey)) {
+            throw new IllegalStateException("This book is already checked out!");
+        }
+        memberLoans.checkLimit(memberId);
+
+        // The log keeps only the record addresses; the returned loan is a copy built from them
+        long next = version + 1;
+        int position = loanLog.append(bookAddress, memberAddress, issueDate, next);
+        BookLoan loan = loanLog.get(position);
+        Book book = loan.getBook();
+        Member member = loan.getMember();
+        int issueDay = (int) issueDate.toEpochDay();
+        activeLoans.put(isbnKey, openLoans.add(position, issueDay,
+                fineSchedule.categoryId(book.getCategory())));
+        memberLoans.loanIssued(member.getId(), issueDay, position);
+        statistics.bookLoaned();
+        coBorrowIndex.recordLoan(member.getId(), isbnKey);
+        eventBus.publish(EventType.BOOK_ISSUED, book.getIsbn(), member.getId());
+        version = next;
+        return loan;
+    }
+
+    /**
+     * Close the active loan for a book as of today
+     */
+    public synchronized BookLoan returnBook(String isbn) {
+        return returnBook(isbn, LocalDate.now());
+    }
+
+    /**
+     * Close the active loan for a book as of the given date
+     */
+    public synchronized BookLoan returnBook(String isbn, LocalDate returnDate) {
+        int row = activeLoans.remove(Isbn.toKey(isbn));
+        if (row == LongIntHashMap.MISSING) {
+            throw new IllegalArgumentException("No active loan found for this book!");
+        }
+
+        long next = version + 1;
+        BookLoan loanToReturn = loanLog.markReturned(openLoans.getLoanPosition(row), returnDate, next);
+        int moved = openLoans.remove(row);
+        if (moved >= 0) {
+            // The last open loan was moved into the freed row
+            activeLoans.put(loanLog.getIsbnKey(moved), row);
+        }
+        memberLoans.loanReturned(loanToReturn.getMember().getId());
+        statistics.bookReturned();
+        eventBus.publish(EventType.BOOK_RETURNED, loanToReturn.getBook().getIsbn(),
+                loanToReturn.getMember().getId());
+        version = next;
+        return loanToReturn;
+    }
+
+    /**
+     * Get all loans that have not been returned yet
+     */
+    public synchronized List<BookLoan> getActiveLoans() {
+        // Loan log positions grow with each loan, so sorting them gives issue order
+        int[] positions = new int[openLoans.size()];
+        for (int row = 0; row < positions.length; row++) {
+            positions[row] = openLoans.getLoanPosition(row);
+        }
+        Arrays.sort(positions);
+
+        List<BookLoan> loans = new ArrayList<>(positions.length);
+        for (int position : positions) {
+            loans.add(loanLog.get(position));
+        }
+        return loans;
+    }
+
+    /**
+     * Get the loans a member has not returned yet
+     */
+    public synchronized List<BookLoan> getActiveLoans(String memberId) {
+        // Walk the member's history back from the newest loan until every open one is found
+        int open = memberLoans.getOpenCount(memberId);
+        List<BookLoan> loans = new ArrayList<>(open);
+        for (int position : memberLoans.loansNewestFirst(memberId)) {
+            if (loans.size() == open) {
+                break;
+            }
+            if (!loanLog.isReturned(position)) {
+                loans.add(loanLog.get(position));
             }
         }
-        return null;
+        Collections.reverse(loans);
+        return loans;
     }
 
-    private Member findMemberById(String id) {
-        for (Member member : memberList) {
-            if (member.getId().equals(id)) {
-                return member;
+    /**
+     * Get a member's loans issued between two dates inclusive, oldest
+     * first. A null date leaves that end of the range open.
+     */
+    public synchronized List<BookLoan> getLoanHistory(String memberId, LocalDate from, LocalDate to) {
+        int fromDay = from == null ? Integer.MIN_VALUE : (int) from.toEpochDay();
+        int toDay = to == null ? Integer.MAX_VALUE : (int) to.toEpochDay();
+        int[] positions = memberLoans.loansBetween(memberId, fromDay, toDay);
+        List<BookLoan> loans = new ArrayList<>(positions.length);
+        for (int position : positions) {
+            loans.add(loanLog.get(position));
+        }
+        return loans;
+    }
+
+    /**
+     * Get the most books a member may have out at once
+     */
+    public synchronized int getLoanLimit(String memberId) {
+        return memberLoans.getLimit(memberId);
+    }
+
+    /**
+     * Give a member their own limit on books out at once
+     */
+    public synchronized void setLoanLimit(String memberId, int limit) {
+        if (findMemberById(memberId) == null) {
+            throw new IllegalArgumentException("Member not found!");
+        }
+        memberLoans.setLimit(memberId, limit);
+    }
+
+    /**
+     * Make a member follow the library-wide loan limit again
+     */
+    public synchronized void clearLoanLimit(String memberId) {
+        if (findMemberById(memberId) == null) {
+            throw new IllegalArgumentException("Member not found!");
+        }
+        memberLoans.clearLimit(memberId);
+    }
+
+    /**
+     * Set the limit on books out at once for members without their own
+     */
+    public synchronized void setDefaultLoanLimit(int limit) {
+        memberLoans.setDefaultLimit(limit);
+    }
+
+    /**
+     * Compute the fines accrued by every active loan as of the given date.
+     * Only copying the open loans holds the lock; the assessment itself
+     * runs in parallel without it.
+     */
+    public FineReport assessFines(LocalDate asOf) {
+        OpenLoanTable loans;
+        synchronized (this) {
+            loans = openLoans.copy();
+        }
+        return finesEngine.assess(loans, asOf);
+    }
+
+    /**
+     * Get the loans with the largest fines in a report, largest first
+     */
+    public synchronized List<Fine> getLargestFines(FineReport report, int limit) {
+        List<Fine> fines = new ArrayList<>();
+        for (int row : report.largestFines(limit)) {
+            fines.add(new Fine(loanLog.get(report.getLoanPosition(row)),
+                    report.getOverdueDays(row), report.getFineCents(row)));
+        }
+        return fines;
+    }
+
+    /**
+     * Write a dataset to a file, in the format named by its extension
+     * (.csv or .jsonl, optionally followed by .gz). The export streams from
+     * a snapshot, so it does not hold up other callers however large it is.
+     */
+    public long export(ExportDataset dataset, Path path) throws IOException {
+        return new LibraryExporter(snapshot()).export(dataset, path);
+    }
+
+    /**
+     * Get the table of fine rates by book category
+     */
+    public FineSchedule getFineSchedule() {
+        return fineSchedule;
+    }
+
+    /**
+     * Find books whose title contains the text, ignoring case
+     */
+    public List<Book> searchBooksByTitle(String title) {
+        List<Book> foundBooks = new ArrayList<>();
+        snapshot().forEachBook(record -> {
+            if (record.titleContains(title)) {
+                foundBooks.add(record.toBook());
+            }
+        });
+        return foundBooks;
+    }
+
+    /**
+     * Find books whose author contains the text, ignoring case
+     */
+    public List<Book> searchBooksByAuthor(String author) {
+        List<Book> foundBooks = new ArrayList<>();
+        snapshot().forEachBook(record -> {
+            if (record.authorContains(author)) {
+                foundBooks.add(record.toBook());
+            }
+        });
+        return foundBooks;
+    }
+
+    /**
+     * Find the books matching a query such as
+     * author:tolstoy AND year<1900 AND available. Planning and any index
+     * lookups hold the lock briefly; scanning reads a snapshot without it.
+     */
+    public List<Book> query(String text) {
+        QueryNode query = QueryParser.parse(text);
+        QueryPlan plan;
+        LibrarySnapshot snapshot;
+        LongIntHashMap loaned = null;
+        long[] addresses = null;
+        synchronized (this) {
+            plan = queryPlanner.plan(query, statistics);
+            snapshot = snapshot();
+            if (query.usesLoans()) {
+                loaned = activeLoans.copy();
+            }
+            if (plan.getAccessPath() == QueryPlan.AccessPath.ISBN_LOOKUP) {
+                addresses = catalog.findBookAddresses(new long[]{plan.getIsbnKey()});
+            } else if (plan.getAccessPath() == QueryPlan.AccessPath.LOANED_BOOKS) {
+                addresses = catalog.findBookAddresses(activeLoans.keys());
+            }
+        }
+
+        List<Book> foundBooks = new ArrayList<>();
+        LongIntHashMap loanedIsbns = loaned;
+        Consumer<BookRecord> collect = record -> {
+            if (plan.matches(record, loanedIsbns)) {
+                foundBooks.add(record.toBook());
             }
+        };
+        if (addresses == null) {
+            snapshot.forEachBook(collect);
+        } else {
+            snapshot.forEachBook(addresses, collect);
+        }
+        return foundBooks;
+    }
+
+    /**
+     * Describe how a query would be run and what it is estimated to cost
+     */
+    public synchronized String explainQuery(String text) {
+        return queryPlanner.plan(QueryParser.parse(text), statistics).explain();
+    }
+
+    /**
+     * Get up to limit books most often borrowed by members who also
+     * borrowed this one, most co-loans first
+     */
+    public synchronized List<Book> recommendBooks(String isbn, int limit) {
+        List<Book> books = new ArrayList<>();
+        for (long other : coBorrowIndex.alsoBorrowed(Isbn.toKey(isbn), limit)) {
+            books.add(findBook(other));
+        }
+        return books;
+    }
+
+    /**
+     * Get up to limit book titles starting with the prefix, ignoring case
+     */
+    public synchronized List<String> suggestTitles(String prefix, int limit) {
+        return titleIndex.complete(prefix, limit);
+    }
+
+    /**
+     * Get up to limit authors starting with the prefix, those with the most books first
+     */
+    public synchronized List<String> suggestAuthors(String prefix, int limit) {
+        return authorIndex.complete(prefix, limit);
+    }
+
+    /**
+     * Get up to limit member names starting with the prefix, ignoring case
+     */
+    public synchronized List<String> suggestMemberNames(String prefix, int limit) {
+        return memberNameIndex.complete(prefix, limit);
+    }
+
+    /**
+     * Get the number of books in the collection
+     */
+    public synchronized int getBookCount() {
+        return catalog.getBookCount();
+    }
+
+    /**
+     * Get the number of registered members
+     */
+    public synchronized int getMemberCount() {
+        return catalog.getMemberCount();
+    }
+
+    /**
+     * Get the number of bytes the catalog holds outside the Java heap
+     */
+    public synchronized long getCatalogOffHeapBytes() {
+        return catalog.getOffHeapBytes();
+    }
+
+    /**
+     * Get the number of loans ever recorded, returned or not
+     */
+    public synchronized int getLoanCount() {
+        return loanLog.size();
+    }
+
+    /**
+     * Take a consistent view of the books, members and loan history as of
+     * the last completed change, without blocking other callers
+     */
+    public LibrarySnapshot snapshot() {
+        return new LibrarySnapshot(() -> version, catalog, loanLog);
+    }
+
+    /**
+     * Get the bus on which every library mutation is published
+     */
+    public EventBus getEventBus() {
+        return eventBus;
+    }
+
+    /**
+     * Find a book by packed ISBN; invalid ISBNs have a negative key and match nothing
+     */
+    private Book findBook(long isbnKey) {
+        return isbnKey < 0 ? null : catalog.getBook(isbnKey);
+    }
+
+    private Member findMemberById(String id) {
+        return catalog.getMember(id);
+    }
+
+    private List<Member> membersSortedByName(Collection<String> ids) {
+        List<Member> members = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            members.add(findMemberById(id));
         }
-        return null;
+        members.sort(Comparator.comparing(Member::getName, String.CASE_INSENSITIVE_ORDER)
+                .thenComparing(Member::getId));
+        return members;
     }
 
     /**
@@ -524,4 +1225,38 @@ public class LibraryController {
             }
         }
     }
+
+    /**
+     * Get a number from the user, or null if they leave it blank
+     */
+    private Integer getOptionalIntInput(String prompt) {
+        while (true) {
+            String input = getInput(prompt);
+            if (input.isEmpty()) {
+                return null;
+            }
+            try {
+                return Integer.parseInt(input);
+            } catch (NumberFormatException e) {
+                System.out.println("Please enter a valid number.");
+            }
+        }
+    }
+
+    /**
+     * Get a date from the user, or null if they leave it blank
+     */
+    private LocalDate getDateInput(String prompt) {
+        while (true) {
+            String input = getInput(prompt);
+            if (input.isEmpty()) {
+                return null;
+            }
+            try {
+                return LocalDate.parse(input);
+            } catch (DateTimeParseException e) {
+                System.out.println("Please enter a date as YYYY-MM-DD.");
+            }
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,116 @@
+/**
+ * This class is an in-process bus for library mutation events, backed by a
+ * preallocated ring buffer. There is a single writer (the controller, which
+ * publishes while holding its lock) and any number of readers, each with its
+ * own position. Publishing only overwrites a slot in place, so it never
+ * allocates, blocks or waits on slow readers; a reader that falls more than
+ * a full ring behind skips ahead and counts the events it missed.
+ */
+package librarysystem.events;
+
+import java.lang.invoke.VarHandle;
+
+public class EventBus {
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+
+    private final Slot[] slots;
+    private final int mask;
+    // Sequence of the last published event, 0 before the first one
+    private volatile long cursor;
+
+    public EventBus() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public EventBus(int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two");
+        }
+        this.slots = new Slot[capacity];
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new Slot();
+        }
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Publish a mutation. Must only be called by one thread at a time.
+     */
+    public void publish(EventType type, String isbn, String memberId) {
+        long sequence = cursor + 1;
+        Slot slot = slots[(int) (sequence & mask)];
+
+        // Mark the slot as being rewritten before touching its fields,
+        // so readers of the previous lap can detect the overwrite
+        slot.sequence = -1;
+        VarHandle.storeStoreFence();
+
+        slot.type = type;
+        slot.timestamp = System.currentTimeMillis();
+        slot.isbn = isbn;
+        slot.memberId = memberId;
+
+        slot.sequence = sequence;
+        cursor = sequence;
+    }
+
+    /**
+     * Get the sequence of the last published event
+     */
+    public long getCursor() {
+        return cursor;
+    }
+
+    public int getCapacity() {
+        return slots.length;
+    }
+
+    /**
+     * Create a reader that receives events published from now on
+     */
+    public EventReader newReader() {
+        return new EventReader(this, cursor + 1);
+    }
+
+    /**
+     * Create a reader starting at the given sequence, or at the oldest
+     * event still held in the ring if that one has been overwritten
+     */
+    public EventReader newReader(long fromSequence) {
+        return new EventReader(this, Math.max(1, fromSequence));
+    }
+
+    /**
+     * Copy the event with the given sequence out of the ring, or return
+     * null if it has already been overwritten
+     */
+    LibraryEvent read(long sequence) {
+        Slot slot = slots[(int) (sequence & mask)];
+        if (slot.sequence != sequence) {
+            return null;
+        }
+
+        EventType type = slot.type;
+        long timestamp = slot.timestamp;
+        String isbn = slot.isbn;
+        String memberId = slot.memberId;
+
+        // Re-check after reading the fields in case the writer lapped us meanwhile
+        VarHandle.loadLoadFence();
+        if (slot.sequence != sequence) {
+            return null;
+        }
+        return new LibraryEvent(sequence, type, timestamp, isbn, memberId);
+    }
+
+    /**
+     * One preallocated ring entry, rewritten in place on every lap
+     */
+    private static final class Slot {
+        volatile long sequence;
+        EventType type;
+        long timestamp;
+        String isbn;
+        String memberId;
+    }
+}
@@ -0,0 +1,52 @@
+/**
+ * This class is one consumer's position on the event bus. A reader is
+ * meant to be used by a single thread; separate consumers should each
+ * create their own reader.
+ */
+package librarysystem.events;
+
+import java.util.function.Consumer;
+
+public class EventReader {
+    private final EventBus bus;
+    private long nextSequence;
+    private long missedEvents;
+
+    EventReader(EventBus bus, long nextSequence) {
+        this.bus = bus;
+        this.nextSequence = nextSequence;
+    }
+
+    /**
+     * Hand up to maxEvents pending events to the handler in sequence order
+     * and return how many were delivered
+     */
+    public int poll(Consumer<LibraryEvent> handler, int maxEvents) {
+        int delivered = 0;
+        long available = bus.getCursor();
+
+        while (delivered < maxEvents && nextSequence <= available) {
+            LibraryEvent event = bus.read(nextSequence);
+            if (event == null) {
+                // The writer has lapped this reader; resume at the oldest event still in the ring
+                available = bus.getCursor();
+                long resumeAt = Math.max(available - bus.getCapacity() + 1, nextSequence + 1);
+                missedEvents += resumeAt - nextSequence;
+                nextSequence = resumeAt;
+                continue;
+            }
+
+            handler.accept(event);
+            nextSequence++;
+            delivered++;
+        }
+        return delivered;
+    }
+
+    /**
+     * Get how many events were overwritten before this reader got to them
+     */
+    public long getMissedEvents() {
+        return missedEvents;
+    }
+}
@@ -0,0 +1,13 @@
+/**
+ * This enum lists the kinds of library mutations published on the event bus.
+ */
+package librarysystem.events;
+
+public enum EventType {
+    BOOK_ADDED,
+    BOOK_REMOVED,
+    MEMBER_ADDED,
+    MEMBER_REMOVED,
+    BOOK_ISSUED,
+    BOOK_RETURNED
+}
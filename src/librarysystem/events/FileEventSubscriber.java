@@ -0,0 +1,110 @@
+/**
+ * This class appends every library event to a text file that downstream
+ * consumers can tail. Each event is one tab-separated line:
+ * sequence, timestamp, type, ISBN and member ID. Events are written on a
+ * background thread so the publishing side never waits on disk.
+ */
+package librarysystem.events;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+public class FileEventSubscriber implements Closeable {
+    private static final int BATCH_SIZE = 1024;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final EventReader reader;
+    private final BufferedWriter writer;
+    private final Thread worker;
+    private volatile boolean running;
+    private long reportedMissed;
+
+    public FileEventSubscriber(EventBus bus, Path file) throws IOException {
+        this.reader = bus.newReader();
+        this.writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        this.running = true;
+        this.worker = Thread.ofPlatform().name("library-events-file").daemon().start(this::run);
+    }
+
+    private void run() {
+        try {
+            boolean dirty = false;
+            while (running) {
+                int count = drain();
+                if (count > 0) {
+                    dirty = true;
+                } else {
+                    // Flush once the bus goes quiet so tailing consumers see the events promptly
+                    if (dirty) {
+                        writer.flush();
+                        dirty = false;
+                    }
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                }
+            }
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("Event file subscriber stopped: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Write the next batch of pending events
+     */
+    private int drain() throws IOException {
+        int count = reader.poll(this::write, BATCH_SIZE);
+
+        long missed = reader.getMissedEvents();
+        if (missed != reportedMissed) {
+            writer.write("# missed " + (missed - reportedMissed) + " events\n");
+            reportedMissed = missed;
+        }
+        return count;
+    }
+
+    private void write(LibraryEvent event) {
+        try {
+            writer.write(Long.toString(event.getSequence()));
+            writer.write('\t');
+            writer.write(Instant.ofEpochMilli(event.getTimestamp()).toString());
+            writer.write('\t');
+            writer.write(event.getType().name());
+            writer.write('\t');
+            writer.write(event.getIsbn() == null ? "" : event.getIsbn());
+            writer.write('\t');
+            writer.write(event.getMemberId() == null ? "" : event.getMemberId());
+            writer.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Write any remaining events and close the file
+     */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        try {
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            while (drain() > 0) {
+                // keep draining until caught up
+            }
+        } finally {
+            writer.close();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/**
+ * This class is an immutable copy of one library mutation as seen by a
+ * reader of the event bus. Sequence numbers start at 1 and increase by one
+ * for every published mutation.
+ */
+package librarysystem.events;
+
+import java.time.Instant;
+
+public class LibraryEvent {
+    private final long sequence;
+    private final EventType type;
+    private final long timestamp;
+    private final String isbn;
+    private final String memberId;
+
+    public LibraryEvent(long sequence, EventType type, long timestamp, String isbn, String memberId) {
+        this.sequence = sequence;
+        this.type = type;
+        this.timestamp = timestamp;
+        this.isbn = isbn;
+        this.memberId = memberId;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public EventType getType() {
+        return type;
+    }
+
+    /**
+     * Time of the mutation in epoch milliseconds
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * ISBN of the affected book, or null for member events
+     */
+    public String getIsbn() {
+        return isbn;
+    }
+
+    /**
+     * ID of the affected member, or null for book events
+     */
+    public String getMemberId() {
+        return memberId;
+    }
+
+    @Override
+    public String toString() {
+        return "LibraryEvent{" +
+                "sequence=" + sequence +
+                ", type=" + type +
+                ", timestamp=" + Instant.ofEpochMilli(timestamp) +
+                ", isbn='" + isbn + '\'' +
+                ", memberId='" + memberId + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,21 @@
+/**
+ * This enum lists the sets of records that can be exported.
+ */
+package librarysystem.export;
+
+public enum ExportDataset {
+    BOOKS("isbn", "title", "author", "category", "year"),
+    MEMBERS("id", "name", "email", "phone"),
+    ACTIVE_LOANS("isbn", "title", "member_id", "member_name", "issue_date", "return_date"),
+    LOAN_HISTORY("isbn", "title", "member_id", "member_name", "issue_date", "return_date");
+
+    private final String[] columns;
+
+    ExportDataset(String... columns) {
+        this.columns = columns;
+    }
+
+    public String[] getColumns() {
+        return columns.clone();
+    }
+}
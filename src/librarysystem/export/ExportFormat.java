@@ -0,0 +1,40 @@
+/**
+ * This enum lists the file formats the library can be exported to.
+ */
+package librarysystem.export;
+
+public enum ExportFormat {
+    CSV(".csv"),
+    JSON_LINES(".jsonl");
+
+    public static final String GZIP_SUFFIX = ".gz";
+
+    private final String extension;
+
+    ExportFormat(String extension) {
+        this.extension = extension;
+    }
+
+    /**
+     * Pick the format from a file name such as books.csv or loans.jsonl.gz
+     */
+    public static ExportFormat forFileName(String fileName) {
+        String name = fileName.toLowerCase();
+        if (name.endsWith(GZIP_SUFFIX)) {
+            name = name.substring(0, name.length() - GZIP_SUFFIX.length());
+        }
+        for (ExportFormat format : values()) {
+            if (name.endsWith(format.extension)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Export file name must end in .csv or .jsonl, optionally followed by .gz");
+    }
+
+    /**
+     * Check whether a file name asks for gzip compression
+     */
+    public static boolean isGzip(String fileName) {
+        return fileName.toLowerCase().endsWith(GZIP_SUFFIX);
+    }
+}
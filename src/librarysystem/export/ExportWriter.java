@@ -0,0 +1,287 @@
+/**
+ * This class writes rows of fields as CSV or JSON Lines straight into a
+ * large NIO byte buffer, encoding text to UTF-8 and escaping it as it
+ * goes, and hands the buffer to the file channel whenever it fills up.
+ * Memory use is the buffer alone, however many rows are written.
+ *
+ * CSV output starts with a header line and quotes fields only when they
+ * contain a comma, quote or line break. JSON Lines output writes one object
+ * per row, keyed by column name. With gzip the bytes are compressed on the
+ * way to the file.
+ */
+package librarysystem.export;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.zip.GZIPOutputStream;
+
+public final class ExportWriter implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+    // Room for the longest single write: one escaped char or one number
+    private static final int MAX_STEP = 24;
+    private static final byte[] HEX = "0123456789abcdef".getBytes();
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer;
+    private final ExportFormat format;
+    private final byte[][] jsonKeys;
+    private final byte[] digits = new byte[20];
+    private int column;
+    private long rows;
+
+    public ExportWriter(Path path, ExportFormat format, boolean gzip, String... columns) throws IOException {
+        this.format = format;
+        this.jsonKeys = new byte[columns.length][];
+        for (int i = 0; i < columns.length; i++) {
+            jsonKeys[i] = ("\"" + columns[i] + "\":").getBytes();
+        }
+
+        if (gzip) {
+            OutputStream file = Files.newOutputStream(path);
+            try {
+                this.channel = Channels.newChannel(new GZIPOutputStream(file, GZIP_BUFFER_SIZE));
+            } catch (IOException | RuntimeException e) {
+                closeAfterFailure(file, e);
+                throw e;
+            }
+            // The stream copies into a byte array anyway, so skip the native buffer
+            this.buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        } else {
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            this.buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        }
+
+        if (format == ExportFormat.CSV) {
+            // Nobody can close the writer if the constructor fails, so close the file here
+            try {
+                for (String name : columns) {
+                    field(name);
+                }
+                endRow();
+                rows = 0;
+            } catch (IOException | RuntimeException e) {
+                closeAfterFailure(channel, e);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Write a text field; null is written as an empty CSV field or JSON null
+     */
+    public void field(String value) throws IOException {
+        separator();
+        if (value == null) {
+            if (format == ExportFormat.JSON_LINES) {
+                ascii("null");
+            }
+        } else if (format == ExportFormat.JSON_LINES) {
+            put('"');
+            text(value, true);
+            put('"');
+        } else if (needsQuotes(value)) {
+            put('"');
+            text(value, false);
+            put('"');
+        } else {
+            text(value, false);
+        }
+    }
+
+    public void field(long value) throws IOException {
+        separator();
+        number(value);
+    }
+
+    /**
+     * Write a date as yyyy-MM-dd, exactly as LocalDate.toString does, or as
+     * null when missing
+     */
+    public void field(LocalDate date) throws IOException {
+        if (date == null) {
+            field((String) null);
+            return;
+        }
+        separator();
+        if (format == ExportFormat.JSON_LINES) {
+            put('"');
+        }
+        year(date.getYear());
+        put('-');
+        twoDigits(date.getMonthValue());
+        put('-');
+        twoDigits(date.getDayOfMonth());
+        if (format == ExportFormat.JSON_LINES) {
+            put('"');
+        }
+    }
+
+    public void endRow() throws IOException {
+        if (format == ExportFormat.JSON_LINES) {
+            put('}');
+        }
+        put('\n');
+        column = 0;
+        rows++;
+    }
+
+    /**
+     * Get the number of rows written, not counting the CSV header
+     */
+    public long getRowCount() {
+        return rows;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            drain();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void separator() throws IOException {
+        if (format == ExportFormat.JSON_LINES) {
+            // Column names can be longer than MAX_STEP, so make room for the whole key
+            room(1 + jsonKeys[column].length);
+            buffer.put(column == 0 ? (byte) '{' : (byte) ',');
+            buffer.put(jsonKeys[column]);
+        } else if (column > 0) {
+            put(',');
+        }
+        column++;
+    }
+
+    private static boolean needsQuotes(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Encode text to UTF-8, escaping it for a JSON string or a quoted CSV field
+     */
+    private void text(String value, boolean json) throws IOException {
+        for (int i = 0; i < value.length(); i++) {
+            if (buffer.remaining() < MAX_STEP) {
+                drain();
+            }
+            char c = value.charAt(i);
+            if (c == '"') {
+                buffer.put(json ? (byte) '\\' : (byte) '"').put((byte) '"');
+            } else if (json && c == '\\') {
+                buffer.put((byte) '\\').put((byte) '\\');
+            } else if (json && c < 0x20) {
+                buffer.put((byte) '\\').put((byte) 'u').put((byte) '0').put((byte) '0')
+                        .put(HEX[c >> 4]).put(HEX[c & 0xF]);
+            } else if (c < 0x80) {
+                buffer.put((byte) c);
+            } else if (c < 0x800) {
+                buffer.put((byte) (0xC0 | c >> 6)).put((byte) (0x80 | c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, value.charAt(++i));
+                buffer.put((byte) (0xF0 | cp >> 18)).put((byte) (0x80 | cp >> 12 & 0x3F))
+                        .put((byte) (0x80 | cp >> 6 & 0x3F)).put((byte) (0x80 | cp & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                buffer.put((byte) '?');
+            } else {
+                buffer.put((byte) (0xE0 | c >> 12)).put((byte) (0x80 | c >> 6 & 0x3F))
+                        .put((byte) (0x80 | c & 0x3F));
+            }
+        }
+    }
+
+    private void number(long value) throws IOException {
+        room();
+        if (value < 0) {
+            buffer.put((byte) '-');
+            if (value == Long.MIN_VALUE) {
+                ascii("9223372036854775808");
+                return;
+            }
+            value = -value;
+        }
+        int n = digits.length;
+        do {
+            digits[--n] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        buffer.put(digits, n, digits.length - n);
+    }
+
+    /**
+     * Write a year with at least four digits, signed outside 0000 to 9999
+     */
+    private void year(int year) throws IOException {
+        if (year < 0) {
+            put('-');
+        } else if (year > 9999) {
+            put('+');
+        }
+        int absolute = Math.abs(year);
+        for (int place = 1000; place > 1 && absolute < place; place /= 10) {
+            put('0');
+        }
+        number(absolute);
+    }
+
+    private void twoDigits(int value) throws IOException {
+        room();
+        buffer.put((byte) ('0' + value / 10)).put((byte) ('0' + value % 10));
+    }
+
+    private void ascii(String text) throws IOException {
+        room();
+        for (int i = 0; i < text.length(); i++) {
+            buffer.put((byte) text.charAt(i));
+        }
+    }
+
+    private void put(char c) throws IOException {
+        room();
+        buffer.put((byte) c);
+    }
+
+    private void room() throws IOException {
+        room(MAX_STEP);
+    }
+
+    private void room(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            drain();
+        }
+    }
+
+    private static void closeAfterFailure(Closeable closeable, Exception failure) {
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            failure.addSuppressed(e);
+        }
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,109 @@
+/**
+ * This class streams a dataset from a LibrarySnapshot into an export file.
+ * Records are read one at a time from the snapshot and written straight
+ * out, so an export of any size runs in constant memory and never holds
+ * the library lock, while the file still shows a single consistent moment.
+ */
+package librarysystem.export;
+
+import librarysystem.storage.LibrarySnapshot;
+import librarysystem.storage.LoanRecord;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+
+public class LibraryExporter {
+    private final LibrarySnapshot snapshot;
+
+    public LibraryExporter(LibrarySnapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    /**
+     * Export a dataset, taking the format and compression from the file name
+     */
+    public long export(ExportDataset dataset, Path path) throws IOException {
+        String fileName = path.getFileName().toString();
+        return export(dataset, path, ExportFormat.forFileName(fileName), ExportFormat.isGzip(fileName));
+    }
+
+    /**
+     * Export a dataset and return the number of records written
+     */
+    public long export(ExportDataset dataset, Path path, ExportFormat format, boolean gzip) throws IOException {
+        try (ExportWriter writer = new ExportWriter(path, format, gzip, dataset.getColumns())) {
+            try {
+                switch (dataset) {
+                    case BOOKS:
+                        writeBooks(writer);
+                        break;
+                    case MEMBERS:
+                        writeMembers(writer);
+                        break;
+                    case ACTIVE_LOANS:
+                        writeLoans(writer, true);
+                        break;
+                    case LOAN_HISTORY:
+                        writeLoans(writer, false);
+                        break;
+                }
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            return writer.getRowCount();
+        }
+    }
+
+    private void writeBooks(ExportWriter writer) {
+        snapshot.forEachBook(book -> {
+            try {
+                writer.field(book.getIsbn());
+                writer.field(book.getTitle());
+                writer.field(book.getAuthor());
+                writer.field(book.getCategory());
+                writer.field(book.getPublicationYear());
+                writer.endRow();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private void writeMembers(ExportWriter writer) {
+        snapshot.forEachMember(member -> {
+            try {
+                writer.field(member.getId());
+                writer.field(member.getName());
+                writer.field(member.getEmail());
+                writer.field(member.getPhone());
+                writer.endRow();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private void writeLoans(ExportWriter writer, boolean activeOnly) {
+        snapshot.forEachLoan(loan -> {
+            if (activeOnly && !loan.isActive()) {
+                return;
+            }
+            try {
+                writeLoan(writer, loan);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private void writeLoan(ExportWriter writer, LoanRecord loan) throws IOException {
+        writer.field(loan.getIsbn());
+        writer.field(loan.getTitle());
+        writer.field(loan.getMemberId());
+        writer.field(loan.getMemberName());
+        writer.field(loan.getIssueDate());
+        writer.field(loan.getReturnDate());
+        writer.endRow();
+    }
+}
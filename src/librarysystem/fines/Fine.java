@@ -0,0 +1,31 @@
+/**
+ * This class pairs a loan with the fee it had accrued when fines were
+ * assessed.
+ */
+package librarysystem.fines;
+
+import librarysystem.models.BookLoan;
+
+public class Fine {
+    private final BookLoan loan;
+    private final int overdueDays;
+    private final int cents;
+
+    public Fine(BookLoan loan, int overdueDays, int cents) {
+        this.loan = loan;
+        this.overdueDays = overdueDays;
+        this.cents = cents;
+    }
+
+    public BookLoan getLoan() {
+        return loan;
+    }
+
+    public int getOverdueDays() {
+        return overdueDays;
+    }
+
+    public int getCents() {
+        return cents;
+    }
+}
@@ -0,0 +1,58 @@
+/**
+ * This class describes how overdue fees accrue for one category of book:
+ * how many days a loan may run before it is overdue, how much is charged
+ * for each day after that, and the most a single loan can be charged.
+ * Amounts are whole cents.
+ */
+package librarysystem.fines;
+
+public class FineRate {
+    private final int loanDays;
+    private final int centsPerDay;
+    private final int capCents;
+
+    /**
+     * Create a rate; a cap of zero means the fee is not capped
+     */
+    public FineRate(int loanDays, int centsPerDay, int capCents) {
+        if (loanDays < 0 || centsPerDay < 0 || capCents < 0) {
+            throw new IllegalArgumentException("Loan days, daily rate and cap cannot be negative!");
+        }
+        this.loanDays = loanDays;
+        this.centsPerDay = centsPerDay;
+        this.capCents = capCents;
+    }
+
+    /**
+     * Parse a rate written as "loanDays,centsPerDay,capCents"
+     */
+    public static FineRate parse(String text) {
+        String[] parts = text.split(",");
+        if (parts.length != 3) {
+            throw new IllegalArgumentException("A fine rate needs loan days, daily cents and cap: " + text);
+        }
+        try {
+            return new FineRate(Integer.parseInt(parts[0].trim()), Integer.parseInt(parts[1].trim()),
+                    Integer.parseInt(parts[2].trim()));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("A fine rate needs whole numbers: " + text);
+        }
+    }
+
+    public int getLoanDays() {
+        return loanDays;
+    }
+
+    public int getCentsPerDay() {
+        return centsPerDay;
+    }
+
+    public int getCapCents() {
+        return capCents;
+    }
+
+    @Override
+    public String toString() {
+        return loanDays + "," + centsPerDay + "," + capCents;
+    }
+}
@@ -0,0 +1,89 @@
+/**
+ * This class holds the outcome of one fines assessment: the fee owed by
+ * each open loan, indexed by its row in the assessed table, together with
+ * the totals.
+ */
+package librarysystem.fines;
+
+import java.time.LocalDate;
+import java.util.PriorityQueue;
+
+public class FineReport {
+    private final LocalDate asOf;
+    private final OpenLoanTable loans;
+    private final FineSchedule.RateTable rates;
+    private final int[] fines;
+    private final long totalCents;
+    private final int overdueCount;
+
+    FineReport(LocalDate asOf, OpenLoanTable loans, FineSchedule.RateTable rates, int[] fines,
+               long totalCents, int overdueCount) {
+        this.asOf = asOf;
+        this.loans = loans;
+        this.rates = rates;
+        this.fines = fines;
+        this.totalCents = totalCents;
+        this.overdueCount = overdueCount;
+    }
+
+    /**
+     * Get the number of open loans assessed
+     */
+    public int getLoanCount() {
+        return fines.length;
+    }
+
+    public int getOverdueCount() {
+        return overdueCount;
+    }
+
+    public long getTotalCents() {
+        return totalCents;
+    }
+
+    public int getFineCents(int row) {
+        return fines[row];
+    }
+
+    public int getOverdueDays(int row) {
+        int category = loans.getCategoryId(row);
+        return Math.max(0, (int) asOf.toEpochDay() - loans.getIssueDay(row) - rates.loanDays[category]);
+    }
+
+    /**
+     * Get the loan log position of the loan in a row
+     */
+    public int getLoanPosition(int row) {
+        return loans.getLoanPosition(row);
+    }
+
+    /**
+     * Get the rows with the largest fines, largest first
+     */
+    public int[] largestFines(int limit) {
+        if (limit <= 0) {
+            return new int[0];
+        }
+
+        // Min-heap of the best rows so far, so the smallest is evicted first
+        PriorityQueue<Integer> best = new PriorityQueue<>(Math.min(limit, overdueCount) + 1,
+                (a, b) -> fines[a] != fines[b] ? Integer.compare(fines[a], fines[b]) : Integer.compare(b, a));
+        for (int row = 0; row < fines.length; row++) {
+            if (fines[row] == 0) {
+                continue;
+            }
+            if (best.size() < limit) {
+                best.add(row);
+            } else if (fines[row] > fines[best.peek()]) {
+                best.poll();
+                best.add(row);
+            }
+        }
+
+        int[] rows = new int[best.size()];
+        for (int i = rows.length - 1; i >= 0; i--) {
+            rows[i] = best.poll();
+        }
+        return rows;
+    }
+}
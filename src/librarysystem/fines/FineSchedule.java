@@ -0,0 +1,101 @@
+/**
+ * This class is the table of fine rates by book category. Categories are
+ * matched ignoring case and surrounding spaces, and any category without a
+ * rate of its own uses the default rate.
+ *
+ * Each category is given a small integer ID the first time it is seen, so
+ * open loans can record their category as an int and the fines engine can
+ * look rates up by array index. Rates may be changed at any time; an
+ * assessment uses the rates in force when it starts.
+ *
+ * Rates can be loaded from a properties file such as:
+ *   default = 14,25,1000
+ *   category.Reference = 7,100,2500
+ * where each value is "loanDays,centsPerDay,capCents".
+ */
+package librarysystem.fines;
+
+import java.util.*;
+
+public class FineSchedule {
+    public static final FineRate DEFAULT_RATE = new FineRate(14, 25, 1000);
+
+    private static final String DEFAULT_KEY = "default";
+    private static final String CATEGORY_PREFIX = "category.";
+
+    private final Map<String, Integer> categoryIds = new HashMap<>();
+    private final List<FineRate> ratesById = new ArrayList<>();
+    private FineRate defaultRate = DEFAULT_RATE;
+
+    /**
+     * Get the ID of a category, assigning the next one if it is new
+     */
+    public synchronized int categoryId(String category) {
+        String key = normalize(category);
+        Integer id = categoryIds.get(key);
+        if (id == null) {
+            id = ratesById.size();
+            categoryIds.put(key, id);
+            ratesById.add(null);
+        }
+        return id;
+    }
+
+    public synchronized void setDefaultRate(FineRate rate) {
+        defaultRate = rate;
+    }
+
+    public synchronized void setRate(String category, FineRate rate) {
+        ratesById.set(categoryId(category), rate);
+    }
+
+    /**
+     * Apply the "default" and "category.*" entries of a properties file
+     */
+    public synchronized void load(Properties properties) {
+        for (String key : properties.stringPropertyNames()) {
+            String value = properties.getProperty(key);
+            if (key.equals(DEFAULT_KEY)) {
+                setDefaultRate(FineRate.parse(value));
+            } else if (key.startsWith(CATEGORY_PREFIX)) {
+                setRate(key.substring(CATEGORY_PREFIX.length()), FineRate.parse(value));
+            }
+        }
+    }
+
+    /**
+     * Flatten the current rates into arrays indexed by category ID
+     */
+    synchronized RateTable toRateTable() {
+        int count = ratesById.size();
+        int[] loanDays = new int[count];
+        int[] centsPerDay = new int[count];
+        int[] capCents = new int[count];
+        for (int id = 0; id < count; id++) {
+            FineRate rate = ratesById.get(id) == null ? defaultRate : ratesById.get(id);
+            loanDays[id] = rate.getLoanDays();
+            centsPerDay[id] = rate.getCentsPerDay();
+            capCents[id] = rate.getCapCents() == 0 ? Integer.MAX_VALUE : rate.getCapCents();
+        }
+        return new RateTable(loanDays, centsPerDay, capCents);
+    }
+
+    private static String normalize(String category) {
+        return category == null ? "" : category.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Rates by category ID, with an uncapped fee stored as the largest int
+     */
+    static final class RateTable {
+        final int[] loanDays;
+        final int[] centsPerDay;
+        final int[] capCents;
+
+        RateTable(int[] loanDays, int[] centsPerDay, int[] capCents) {
+            this.loanDays = loanDays;
+            this.centsPerDay = centsPerDay;
+            this.capCents = capCents;
+        }
+    }
+}
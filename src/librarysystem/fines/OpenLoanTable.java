@@ -0,0 +1,99 @@
+/**
+ * This class keeps every open loan as a row of parallel int arrays: the
+ * epoch day it was issued, the ID of its book's category and its position
+ * in the loan log. Rows are packed with no gaps; returning a loan moves the
+ * last row into its place, so the owner must re-point whatever referred to
+ * the moved row.
+ *
+ * The table is not thread safe; the controller copies it under its lock
+ * before handing it to the fines engine.
+ */
+package librarysystem.fines;
+
+import java.util.Arrays;
+
+public class OpenLoanTable {
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private int[] issueDays;
+    private int[] categoryIds;
+    private int[] loanPositions;
+    private int size;
+
+    public OpenLoanTable() {
+        this(INITIAL_CAPACITY);
+    }
+
+    private OpenLoanTable(int capacity) {
+        this.issueDays = new int[capacity];
+        this.categoryIds = new int[capacity];
+        this.loanPositions = new int[capacity];
+    }
+
+    /**
+     * Add an open loan and return its row
+     */
+    public int add(int loanPosition, int issueDay, int categoryId) {
+        if (size == issueDays.length) {
+            int capacity = size * 2;
+            issueDays = Arrays.copyOf(issueDays, capacity);
+            categoryIds = Arrays.copyOf(categoryIds, capacity);
+            loanPositions = Arrays.copyOf(loanPositions, capacity);
+        }
+        issueDays[size] = issueDay;
+        categoryIds[size] = categoryId;
+        loanPositions[size] = loanPosition;
+        return size++;
+    }
+
+    /**
+     * Remove a row by moving the last row into it. Returns the loan
+     * position of the moved row, or -1 if the removed row was the last.
+     */
+    public int remove(int row) {
+        int last = --size;
+        if (row == last) {
+            return -1;
+        }
+        issueDays[row] = issueDays[last];
+        categoryIds[row] = categoryIds[last];
+        loanPositions[row] = loanPositions[last];
+        return loanPositions[row];
+    }
+
+    public int getLoanPosition(int row) {
+        return loanPositions[row];
+    }
+
+    public int getIssueDay(int row) {
+        return issueDays[row];
+    }
+
+    public int getCategoryId(int row) {
+        return categoryIds[row];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Copy the rows into a table of exactly the right size
+     */
+    public OpenLoanTable copy() {
+        OpenLoanTable copy = new OpenLoanTable(0);
+        copy.issueDays = Arrays.copyOf(issueDays, size);
+        copy.categoryIds = Arrays.copyOf(categoryIds, size);
+        copy.loanPositions = Arrays.copyOf(loanPositions, size);
+        copy.size = size;
+        return copy;
+    }
+
+    int[] issueDays() {
+        return issueDays;
+    }
+
+    int[] categoryIds() {
+        return categoryIds;
+    }
+}
@@ -0,0 +1,252 @@
+/**
+ * This class answers "members who borrowed this also borrowed". Every book
+ * keeps a sparse counter of the other books borrowed by the same members,
+ * updated as each loan is issued, so recommendations are read straight off
+ * the counter instead of being recomputed from the loan history.
+ *
+ * Packed ISBNs are mapped to dense int IDs, and counters are open
+ * addressing int-to-int tables, so there is no boxing per pair. Each member
+ * remembers only their most recent distinct books, which bounds the work
+ * per loan; a book borrowed again by the same member adds nothing new.
+ *
+ * Each counter tracks at most COUNTER_LIMIT other books. When a full
+ * counter meets a new book, the lower-counted half of its entries is
+ * dropped, so memory grows with the catalog rather than with the number
+ * of loans. Books borrowed together often keep their counts; rare pairs
+ * may be forgotten and start again from one.
+ *
+ * A removed book's ID is retired for good. Other counters and member
+ * histories may still hold it, so it is skipped when reading and dropped
+ * when a counter is pruned. If the same ISBN is lent again, it gets a
+ * fresh ID and starts with no pairs.
+ */
+package librarysystem.index;
+
+import java.util.*;
+
+public class CoBorrowIndex {
+    // Distinct recent books remembered per member; older ones stop gaining pairs
+    static final int HISTORY_LIMIT = 64;
+    // Other books counted per book; enough to rank any recommendation list shown
+    static final int COUNTER_LIMIT = 64;
+
+    private final LongIntHashMap bookIds = new LongIntHashMap();
+    private long[] isbnKeys = new long[1024];
+    private int bookCount;
+    private Counter[] counters = new Counter[1024];
+    private boolean[] removed = new boolean[1024];
+
+    private final Map<String, History> histories = new HashMap<>();
+
+    /**
+     * Record that a member borrowed a book, pairing it with the member's recent books
+     */
+    public void recordLoan(String memberId, long isbnKey) {
+        int book = bookId(isbnKey);
+        History history = histories.computeIfAbsent(memberId, k -> new History());
+        if (history.contains(book)) {
+            return;
+        }
+
+        Counter counter = counters[book];
+        for (int i = 0; i < history.size; i++) {
+            int other = history.books[i];
+            // Retired IDs stay in histories but no longer gain pairs
+            if (removed[other]) {
+                continue;
+            }
+            counter.increment(other, removed);
+            counters[other].increment(book, removed);
+        }
+        history.add(book);
+    }
+
+    /**
+     * Get up to limit packed ISBNs most often borrowed by members who
+     * borrowed this one, most co-loans first
+     */
+    public long[] alsoBorrowed(long isbnKey, int limit) {
+        int book = bookIds.get(isbnKey);
+        if (book == LongIntHashMap.MISSING || limit <= 0) {
+            return new long[0];
+        }
+
+        // Worst of the best so far at the head: fewest co-loans, then the higher ISBN
+        Counter counter = counters[book];
+        PriorityQueue<int[]> best = new PriorityQueue<>(Math.min(limit, counter.size) + 1, (a, b) -> a[1] != b[1]
+                ? Integer.compare(a[1], b[1]) : Long.compare(isbnKeys[b[0]], isbnKeys[a[0]]));
+        for (int slot = 0; slot < counter.keys.length; slot++) {
+            int other = counter.keys[slot];
+            if (other == Counter.EMPTY || removed[other]) {
+                continue;
+            }
+            best.add(new int[]{other, counter.counts[slot]});
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+
+        long[] ranked = new long[best.size()];
+        for (int i = ranked.length - 1; i >= 0; i--) {
+            ranked[i] = isbnKeys[best.poll()[0]];
+        }
+        return ranked;
+    }
+
+    /**
+     * Stop recommending a book that has left the catalog and retire its ID
+     */
+    public void removeBook(long isbnKey) {
+        int book = bookIds.remove(isbnKey);
+        if (book != LongIntHashMap.MISSING) {
+            removed[book] = true;
+            counters[book] = null;
+        }
+    }
+
+    /**
+     * Forget a member's recent books; pairs already counted are kept
+     */
+    public void removeMember(String memberId) {
+        histories.remove(memberId);
+    }
+
+    private int bookId(long isbnKey) {
+        int id = bookIds.get(isbnKey);
+        if (id != LongIntHashMap.MISSING) {
+            return id;
+        }
+
+        int book = bookCount++;
+        if (book == counters.length) {
+            counters = Arrays.copyOf(counters, book * 2);
+            removed = Arrays.copyOf(removed, book * 2);
+            isbnKeys = Arrays.copyOf(isbnKeys, book * 2);
+        }
+        bookIds.put(isbnKey, book);
+        isbnKeys[book] = isbnKey;
+        counters[book] = new Counter();
+        return book;
+    }
+
+    /**
+     * A member's most recent distinct books, oldest overwritten first
+     */
+    private static final class History {
+        final int[] books = new int[HISTORY_LIMIT];
+        int size;
+        int next;
+
+        boolean contains(int book) {
+            for (int i = 0; i < size; i++) {
+                if (books[i] == book) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void add(int book) {
+            books[next] = book;
+            next = (next + 1) % HISTORY_LIMIT;
+            size = Math.min(size + 1, HISTORY_LIMIT);
+        }
+    }
+
+    /**
+     * Open addressing map from book ID to co-loan count with linear
+     * probing, holding at most COUNTER_LIMIT books
+     */
+    private static final class Counter {
+        static final int EMPTY = -1;
+
+        int[] keys = emptyKeys(4);
+        int[] counts = new int[4];
+        int size;
+
+        void increment(int key, boolean[] removed) {
+            int slot = find(key);
+            if (keys[slot] == key) {
+                counts[slot]++;
+                return;
+            }
+            if (size == COUNTER_LIMIT) {
+                prune(removed);
+                slot = find(key);
+            }
+            keys[slot] = key;
+            counts[slot] = 1;
+            // Keep at most half full so probe runs stay short
+            if (++size * 2 > keys.length) {
+                rehash(keys.length * 2, keys, counts);
+            }
+        }
+
+        /**
+         * Get the slot holding the key, or the empty slot where it belongs
+         */
+        private int find(int key) {
+            int mask = keys.length - 1;
+            int slot = mix(key) & mask;
+            while (keys[slot] != EMPTY && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        /**
+         * Keep the higher-counted half of the entries, dropping removed books
+         * first and breaking ties towards lower book IDs
+         */
+        private void prune(boolean[] removed) {
+            long[] ranked = new long[size];
+            int n = 0;
+            for (int slot = 0; slot < keys.length; slot++) {
+                if (keys[slot] != EMPTY) {
+                    long count = removed[keys[slot]] ? 0 : counts[slot];
+                    ranked[n++] = count << 32 | (Integer.MAX_VALUE - keys[slot]);
+                }
+            }
+            Arrays.sort(ranked);
+
+            int[] keptKeys = new int[COUNTER_LIMIT / 2];
+            int[] keptCounts = new int[COUNTER_LIMIT / 2];
+            int kept = 0;
+            while (kept < keptKeys.length && ranked[n - 1 - kept] >>> 32 > 0) {
+                long entry = ranked[n - 1 - kept];
+                keptKeys[kept] = Integer.MAX_VALUE - (int) entry;
+                keptCounts[kept] = (int) (entry >>> 32);
+                kept++;
+            }
+            size = kept;
+            rehash(keys.length, Arrays.copyOf(keptKeys, kept), Arrays.copyOf(keptCounts, kept));
+        }
+
+        private void rehash(int capacity, int[] oldKeys, int[] oldCounts) {
+            keys = emptyKeys(capacity);
+            counts = new int[capacity];
+            int mask = capacity - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != EMPTY) {
+                    int slot = mix(oldKeys[i]) & mask;
+                    while (keys[slot] != EMPTY) {
+                        slot = (slot + 1) & mask;
+                    }
+                    keys[slot] = oldKeys[i];
+                    counts[slot] = oldCounts[i];
+                }
+            }
+        }
+
+        private static int[] emptyKeys(int capacity) {
+            int[] keys = new int[capacity];
+            Arrays.fill(keys, EMPTY);
+            return keys;
+        }
+
+        private static int mix(int key) {
+            int h = key * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+}
@@ -0,0 +1,183 @@
+/**
+ * This class is a hash map from long keys to non-negative int values held
+ * in two primitive arrays, so neither keys nor values are boxed. It uses
+ * linear probing with backward-shift deletion, which keeps lookups short
+ * without tombstones. Missing keys read as -1.
+ */
+package librarysystem.index;
+
+import java.util.Arrays;
+
+public class LongIntHashMap {
+    public static final int MISSING = -1;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private long[] keys;
+    private int[] values;
+    // Slots are empty when their value is MISSING, since every key is allowed
+    private int mask;
+    private int size;
+
+    public LongIntHashMap() {
+        this(INITIAL_CAPACITY);
+    }
+
+    private LongIntHashMap(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        Arrays.fill(values, MISSING);
+        mask = capacity - 1;
+    }
+
+    /**
+     * Get the value for a key, or MISSING
+     */
+    public int get(long key) {
+        int slot = slot(key);
+        while (values[slot] != MISSING) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return MISSING;
+    }
+
+    public boolean containsKey(long key) {
+        return get(key) != MISSING;
+    }
+
+    /**
+     * Set the value for a key and return the previous one, or MISSING
+     */
+    public int put(long key, int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Values must not be negative");
+        }
+        int slot = slot(key);
+        while (values[slot] != MISSING) {
+            if (keys[slot] == key) {
+                int previous = values[slot];
+                values[slot] = value;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        // Keep at most half full so probe runs stay short
+        if (++size * 2 > keys.length) {
+            resize(keys.length * 2);
+        }
+        return MISSING;
+    }
+
+    /**
+     * Remove a key and return its value, or MISSING
+     */
+    public int remove(long key) {
+        int slot = slot(key);
+        while (values[slot] != MISSING) {
+            if (keys[slot] == key) {
+                int previous = values[slot];
+                deleteSlot(slot);
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return MISSING;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Get every key, in no particular order
+     */
+    public long[] keys() {
+        long[] all = new long[size];
+        int n = 0;
+        for (int slot = 0; slot < values.length; slot++) {
+            if (values[slot] != MISSING) {
+                all[n++] = keys[slot];
+            }
+        }
+        return all;
+    }
+
+    /**
+     * Get every value, in no particular order
+     */
+    public int[] values() {
+        int[] all = new int[size];
+        int n = 0;
+        for (int value : values) {
+            if (value != MISSING) {
+                all[n++] = value;
+            }
+        }
+        return all;
+    }
+
+    public LongIntHashMap copy() {
+        LongIntHashMap copy = new LongIntHashMap(0);
+        copy.keys = keys.clone();
+        copy.values = values.clone();
+        copy.mask = mask;
+        copy.size = size;
+        return copy;
+    }
+
+    private int slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    /**
+     * Empty a slot and shift later entries of the same probe run back into it
+     */
+    private void deleteSlot(int hole) {
+        int next = hole;
+        while (true) {
+            next = (next + 1) & mask;
+            if (values[next] == MISSING) {
+                break;
+            }
+            int home = slot(keys[next]);
+            // The entry may move into the hole only if its home slot is not between the hole and itself
+            boolean stays = hole <= next ? (home > hole && home <= next) : (home > hole || home <= next);
+            if (!stays) {
+                keys[hole] = keys[next];
+                values[hole] = values[next];
+                hole = next;
+            }
+        }
+        values[hole] = MISSING;
+        size--;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[capacity];
+        values = new int[capacity];
+        Arrays.fill(values, MISSING);
+        mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != MISSING) {
+                int slot = slot(oldKeys[i]);
+                while (values[slot] != MISSING) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,144 @@
+/**
+ * This class indexes members by normalized contact details so that desk
+ * lookups do not scan every member. Emails are case-folded and must be
+ * unique, phone numbers are reduced to their digits, and names are split
+ * into lower-case words. All lookups are hash-based and return member IDs;
+ * the member records themselves live in the catalog.
+ *
+ * The index reads the member fields when a member is added or removed, so
+ * a member's details must not be changed while it is indexed.
+ */
+package librarysystem.index;
+
+import librarysystem.models.Member;
+
+import java.util.*;
+
+public class MemberIndex {
+    private final Map<String, String> byEmail = new HashMap<>();
+    private final Map<String, Set<String>> byPhone = new HashMap<>();
+    private final Map<String, Set<String>> byNameToken = new HashMap<>();
+
+    /**
+     * Check that no other member is registered with this member's email
+     */
+    public void checkUnique(Member member) {
+        String email = normalizeEmail(member.getEmail());
+        if (!email.isEmpty() && byEmail.containsKey(email)) {
+            throw new IllegalArgumentException("A member with this email already exists!");
+        }
+    }
+
+    /**
+     * Index a member, rejecting duplicate emails
+     */
+    public void add(Member member) {
+        checkUnique(member);
+
+        String id = member.getId();
+        String email = normalizeEmail(member.getEmail());
+        if (!email.isEmpty()) {
+            byEmail.put(email, id);
+        }
+        String phone = normalizePhone(member.getPhone());
+        if (!phone.isEmpty()) {
+            byPhone.computeIfAbsent(phone, k -> new HashSet<>()).add(id);
+        }
+        for (String token : tokenizeName(member.getName())) {
+            byNameToken.computeIfAbsent(token, k -> new HashSet<>()).add(id);
+        }
+    }
+
+    /**
+     * Drop a member from every index
+     */
+    public void remove(Member member) {
+        String id = member.getId();
+        byEmail.remove(normalizeEmail(member.getEmail()), id);
+        removeFrom(byPhone, normalizePhone(member.getPhone()), id);
+        for (String token : tokenizeName(member.getName())) {
+            removeFrom(byNameToken, token, id);
+        }
+    }
+
+    /**
+     * Find the ID of the member with this email, ignoring case and surrounding spaces
+     */
+    public String findByEmail(String email) {
+        return byEmail.get(normalizeEmail(email));
+    }
+
+    /**
+     * Find IDs of members whose phone has the same digits, ignoring formatting
+     */
+    public Set<String> findByPhone(String phone) {
+        Set<String> found = byPhone.get(normalizePhone(phone));
+        return found == null ? Collections.emptySet() : Collections.unmodifiableSet(found);
+    }
+
+    /**
+     * Find IDs of members whose name contains every word given, in any order
+     */
+    public Set<String> findByName(String name) {
+        List<Set<String>> matches = new ArrayList<>();
+        for (String token : tokenizeName(name)) {
+            Set<String> found = byNameToken.get(token);
+            if (found == null) {
+                return Collections.emptySet();
+            }
+            matches.add(found);
+        }
+        if (matches.isEmpty()) {
+            return Collections.emptySet();
+        }
+
+        // Intersect starting from the rarest word
+        matches.sort(Comparator.comparingInt(Set::size));
+        Set<String> result = new HashSet<>(matches.get(0));
+        for (int i = 1; i < matches.size() && !result.isEmpty(); i++) {
+            result.retainAll(matches.get(i));
+        }
+        return result;
+    }
+
+    public static String normalizeEmail(String email) {
+        return email == null ? "" : email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    public static String normalizePhone(String phone) {
+        if (phone == null) {
+            return "";
+        }
+        StringBuilder digits = new StringBuilder(phone.length());
+        for (int i = 0; i < phone.length(); i++) {
+            char c = phone.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits.append(c);
+            }
+        }
+        return digits.toString();
+    }
+
+    public static List<String> tokenizeName(String name) {
+        if (name == null) {
+            return Collections.emptyList();
+        }
+        List<String> tokens = new ArrayList<>();
+        for (String token : name.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private static void removeFrom(Map<String, Set<String>> index, String key, String id) {
+        Set<String> ids = index.get(key);
+        if (ids != null) {
+            ids.remove(id);
+            if (ids.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+}
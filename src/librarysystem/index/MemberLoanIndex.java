@@ -0,0 +1,187 @@
+/**
+ * This class indexes each member's loans in issue-date order, so member
+ * questions such as "what does this member have out" or "what did they
+ * borrow last year" no longer scan every loan and compare member IDs.
+ *
+ * A member's history is a pair of parallel int arrays holding the issue
+ * day (days since the epoch) and the loan log position of every loan, kept
+ * sorted by day. Loans are almost always issued today, so inserting is an
+ * append; back-dated loans are slotted in after any loans of the same day.
+ * Date ranges are found by binary search.
+ *
+ * Each member also keeps a count of open loans, updated on issue and
+ * return, so the concurrent-loan limit is checked in constant time. The
+ * limit is a library-wide default that single members can override.
+ */
+package librarysystem.index;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+public class MemberLoanIndex {
+    // Limit meaning a member may borrow any number of books at once
+    public static final int NO_LIMIT = Integer.MAX_VALUE;
+
+    private static final int[] NO_POSITIONS = new int[0];
+
+    private final Map<String, History> histories = new HashMap<>();
+    private int defaultLimit = NO_LIMIT;
+
+    /**
+     * Check that the member may take out another book
+     */
+    public void checkLimit(String memberId) {
+        History history = histories.get(memberId);
+        int limit = history == null || history.limit < 0 ? defaultLimit : history.limit;
+        int open = history == null ? 0 : history.openCount;
+        if (open >= limit) {
+            throw new IllegalStateException("Member has reached the loan limit of " + limit
+                    + (limit == 1 ? " book!" : " books!"));
+        }
+    }
+
+    /**
+     * Record a loan issued to the member on the given day
+     */
+    public void loanIssued(String memberId, int issueDay, int position) {
+        History history = histories.computeIfAbsent(memberId, k -> new History());
+        history.insert(issueDay, position);
+        history.openCount++;
+    }
+
+    /**
+     * Record that one of the member's loans was returned
+     */
+    public void loanReturned(String memberId) {
+        History history = histories.get(memberId);
+        if (history != null && history.openCount > 0) {
+            history.openCount--;
+        }
+    }
+
+    /**
+     * Forget a member's history and limit
+     */
+    public void removeMember(String memberId) {
+        histories.remove(memberId);
+    }
+
+    /**
+     * Get the number of books the member has out
+     */
+    public int getOpenCount(String memberId) {
+        History history = histories.get(memberId);
+        return history == null ? 0 : history.openCount;
+    }
+
+    /**
+     * Get the loan log positions of the member's loans issued between the
+     * two days inclusive, oldest first
+     */
+    public int[] loansBetween(String memberId, int fromDay, int toDay) {
+        History history = histories.get(memberId);
+        if (history == null || fromDay > toDay) {
+            return NO_POSITIONS;
+        }
+        int from = history.firstAfter(fromDay - 1L);
+        int to = history.firstAfter(toDay);
+        int[] positions = new int[to - from];
+        System.arraycopy(history.positions, from, positions, 0, positions.length);
+        return positions;
+    }
+
+    /**
+     * Get the loan log positions of all the member's loans, newest first,
+     * so callers looking for recent or open loans can stop early
+     */
+    public int[] loansNewestFirst(String memberId) {
+        History history = histories.get(memberId);
+        if (history == null) {
+            return NO_POSITIONS;
+        }
+        int[] positions = new int[history.size];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = history.positions[history.size - 1 - i];
+        }
+        return positions;
+    }
+
+    public void setDefaultLimit(int limit) {
+        defaultLimit = checkedLimit(limit);
+    }
+
+    /**
+     * Get the limit that applies to the member, their own or the default
+     */
+    public int getLimit(String memberId) {
+        History history = histories.get(memberId);
+        return history == null || history.limit < 0 ? defaultLimit : history.limit;
+    }
+
+    /**
+     * Give a member their own limit; books already out are not recalled
+     */
+    public void setLimit(String memberId, int limit) {
+        histories.computeIfAbsent(memberId, k -> new History()).limit = checkedLimit(limit);
+    }
+
+    /**
+     * Make the member follow the default limit again
+     */
+    public void clearLimit(String memberId) {
+        History history = histories.get(memberId);
+        if (history != null) {
+            history.limit = -1;
+        }
+    }
+
+    private static int checkedLimit(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Loan limit cannot be negative!");
+        }
+        return limit;
+    }
+
+    /**
+     * One member's loans sorted by issue day, with their open count and own limit
+     */
+    private static final class History {
+        int[] issueDays = new int[4];
+        int[] positions = new int[4];
+        int size;
+        int openCount;
+        // Negative when the member follows the default limit
+        int limit = -1;
+
+        void insert(int issueDay, int position) {
+            if (size == issueDays.length) {
+                issueDays = Arrays.copyOf(issueDays, size * 2);
+                positions = Arrays.copyOf(positions, size * 2);
+            }
+            int at = size == 0 || issueDays[size - 1] <= issueDay ? size : firstAfter(issueDay);
+            System.arraycopy(issueDays, at, issueDays, at + 1, size - at);
+            System.arraycopy(positions, at, positions, at + 1, size - at);
+            issueDays[at] = issueDay;
+            positions[at] = position;
+            size++;
+        }
+
+        /**
+         * Binary search for the first loan issued after the given day
+         */
+        int firstAfter(long day) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (issueDays[mid] <= day) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
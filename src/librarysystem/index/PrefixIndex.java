@@ -0,0 +1,352 @@
+/**
+ * This class is a compressed (radix) trie for case-insensitive prefix
+ * completion of titles, authors and member names. Each edge holds a run of
+ * characters instead of one node per character, and each entry's node keeps
+ * the text as it was added. Edge labels are only used for matching, so a
+ * split never changes the casing of another entry.
+ *
+ * Every node tracks how many times its own text was added, the total below
+ * it and the largest single count below it. Completions are ranked by count
+ * (for example an author with many books first) and then alphabetically,
+ * and whole subtrees that cannot beat the current top-k are skipped.
+ *
+ * Matching folds case character by character. Entries that differ only in
+ * case share one node and are shown with the casing that was added first.
+ */
+package librarysystem.index;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+
+public class PrefixIndex {
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    private final Node root = new Node(new char[0]);
+    private int size;
+
+    /**
+     * Add one occurrence of the text
+     */
+    public void add(String text) {
+        char[] key = text.trim().toCharArray();
+        if (key.length == 0) {
+            return;
+        }
+
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        int i = 0;
+
+        while (true) {
+            path.add(node);
+            if (i == key.length) {
+                break;
+            }
+
+            int slot = node.findChild(fold(key[i]));
+            if (slot < 0) {
+                Node leaf = new Node(copyOfRange(key, i, key.length));
+                node.insertChild(-slot - 1, leaf);
+                path.add(leaf);
+                node = leaf;
+                break;
+            }
+
+            Node child = node.children[slot];
+            int common = matchLength(child.label, key, i);
+            if (common < child.label.length) {
+                // Split the edge so that the shared part becomes its own node
+                Node middle = new Node(copyOfRange(child.label, 0, common));
+                child.label = copyOfRange(child.label, common, child.label.length);
+                middle.children = new Node[]{child};
+                middle.childCount = 1;
+                middle.total = child.total;
+                middle.maxCount = child.maxCount;
+                node.children[slot] = middle;
+                child = middle;
+            }
+            i += common;
+            node = child;
+        }
+
+        if (node.count++ == 0) {
+            node.text = new String(key);
+            size++;
+        }
+        for (Node n : path) {
+            n.total++;
+            n.maxCount = Math.max(n.maxCount, node.count);
+        }
+    }
+
+    /**
+     * Remove one occurrence of the text, returning false if it was not present
+     */
+    public boolean remove(String text) {
+        char[] key = text.trim().toCharArray();
+        if (key.length == 0) {
+            return false;
+        }
+
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        int i = 0;
+        while (i < key.length) {
+            path.add(node);
+            int slot = node.findChild(fold(key[i]));
+            if (slot < 0) {
+                return false;
+            }
+            Node child = node.children[slot];
+            if (child.label.length > key.length - i || matchLength(child.label, key, i) < child.label.length) {
+                return false;
+            }
+            i += child.label.length;
+            node = child;
+        }
+        if (node.count == 0) {
+            return false;
+        }
+
+        if (--node.count == 0) {
+            node.text = null;
+            size--;
+        }
+        node.total--;
+        node.recomputeMax();
+
+        // Walk back up, pruning empty nodes and re-merging single-child chains
+        Node child = node;
+        for (int p = path.size() - 1; p >= 0; p--) {
+            Node parent = path.get(p);
+            if (child.count == 0 && child.childCount == 0) {
+                parent.removeChild(child);
+            } else if (child.count == 0 && child.childCount == 1) {
+                parent.replaceChild(child, child.mergeWithOnlyChild());
+            }
+            parent.total--;
+            parent.recomputeMax();
+            child = parent;
+        }
+        return true;
+    }
+
+    /**
+     * Get up to limit entries starting with the prefix, most frequent first
+     */
+    public List<String> complete(String prefix, int limit) {
+        if (limit <= 0) {
+            return Collections.emptyList();
+        }
+
+        Node start = descend(prefix.trim());
+        if (start == null) {
+            return Collections.emptyList();
+        }
+
+        PriorityQueue<Completion> best = new PriorityQueue<>(Math.min(limit, size) + 1);
+        collect(start, best, limit);
+
+        List<Completion> ranked = new ArrayList<>(best);
+        ranked.sort(Collections.reverseOrder());
+        List<String> results = new ArrayList<>(ranked.size());
+        for (Completion completion : ranked) {
+            results.add(completion.text);
+        }
+        return results;
+    }
+
+    /**
+     * Count the occurrences of all entries starting with the prefix
+     */
+    public int countWithPrefix(String prefix) {
+        Node start = descend(prefix.trim());
+        return start == null ? 0 : start.total;
+    }
+
+    /**
+     * Get the number of distinct entries
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Find the node whose subtree holds every entry starting with the prefix
+     */
+    private Node descend(String prefix) {
+        Node node = root;
+        int i = 0;
+        while (i < prefix.length()) {
+            int slot = node.findChild(fold(prefix.charAt(i)));
+            if (slot < 0) {
+                return null;
+            }
+            Node child = node.children[slot];
+            int j = 0;
+            while (j < child.label.length && i < prefix.length()) {
+                if (fold(child.label[j]) != fold(prefix.charAt(i))) {
+                    return null;
+                }
+                j++;
+                i++;
+            }
+            node = child;
+        }
+        return node;
+    }
+
+    /**
+     * Depth-first walk in alphabetical order keeping the best entries seen,
+     * skipping subtrees whose best count cannot make the cut
+     */
+    private void collect(Node node, PriorityQueue<Completion> best, int limit) {
+        if (best.size() == limit && node.maxCount <= best.peek().count) {
+            return;
+        }
+
+        if (node.count > 0) {
+            // Entries are visited alphabetically, so an equal count never displaces an earlier entry
+            if (best.size() < limit) {
+                best.add(new Completion(node.text, node.count));
+            } else if (node.count > best.peek().count) {
+                best.poll();
+                best.add(new Completion(node.text, node.count));
+            }
+        }
+
+        for (int c = 0; c < node.childCount; c++) {
+            collect(node.children[c], best, limit);
+        }
+    }
+
+    private static int matchLength(char[] label, char[] key, int from) {
+        int n = Math.min(label.length, key.length - from);
+        int i = 0;
+        while (i < n && fold(label[i]) == fold(key[from + i])) {
+            i++;
+        }
+        return i;
+    }
+
+    private static char[] copyOfRange(char[] source, int from, int to) {
+        char[] copy = new char[to - from];
+        System.arraycopy(source, from, copy, 0, copy.length);
+        return copy;
+    }
+
+    private static char fold(char c) {
+        if (c < 0x80) {
+            // Most text is ASCII, where folding is just lower-casing A to Z
+            return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+        }
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    /**
+     * A trie node; the edge label leading to it is stored on the node itself
+     */
+    private static final class Node {
+        char[] label;
+        // The entry as first added, or null while nothing ends here
+        String text;
+        Node[] children = NO_CHILDREN;
+        int childCount;
+        int count;
+        int total;
+        int maxCount;
+
+        Node(char[] label) {
+            this.label = label;
+        }
+
+        /**
+         * Binary search the children by folded first character, returning
+         * -(insertion point) - 1 when there is no match
+         */
+        int findChild(char folded) {
+            int low = 0;
+            int high = childCount - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                char c = fold(children[mid].label[0]);
+                if (c < folded) {
+                    low = mid + 1;
+                } else if (c > folded) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -(low + 1);
+        }
+
+        void insertChild(int slot, Node child) {
+            if (childCount == children.length) {
+                Node[] grown = new Node[Math.max(2, childCount * 2)];
+                System.arraycopy(children, 0, grown, 0, childCount);
+                children = grown;
+            }
+            System.arraycopy(children, slot, children, slot + 1, childCount - slot);
+            children[slot] = child;
+            childCount++;
+        }
+
+        void removeChild(Node child) {
+            int slot = findChild(fold(child.label[0]));
+            System.arraycopy(children, slot + 1, children, slot, childCount - slot - 1);
+            children[--childCount] = null;
+            if (childCount == 0) {
+                children = NO_CHILDREN;
+            }
+        }
+
+        void replaceChild(Node child, Node replacement) {
+            children[findChild(fold(child.label[0]))] = replacement;
+        }
+
+        /**
+         * Fold this node's label into its only child and return that child
+         */
+        Node mergeWithOnlyChild() {
+            Node only = children[0];
+            char[] merged = new char[label.length + only.label.length];
+            System.arraycopy(label, 0, merged, 0, label.length);
+            System.arraycopy(only.label, 0, merged, label.length, only.label.length);
+            only.label = merged;
+            return only;
+        }
+
+        void recomputeMax() {
+            int max = count;
+            for (int c = 0; c < childCount; c++) {
+                max = Math.max(max, children[c].maxCount);
+            }
+            maxCount = max;
+        }
+    }
+
+    /**
+     * A candidate completion; orders worst first so the heap head is evicted
+     */
+    private static final class Completion implements Comparable<Completion> {
+        final String text;
+        final int count;
+
+        Completion(String text, int count) {
+            this.text = text;
+            this.count = count;
+        }
+
+        @Override
+        public int compareTo(Completion other) {
+            if (count != other.count) {
+                return Integer.compare(count, other.count);
+            }
+            // Alphabetically later is worse
+            return other.text.compareToIgnoreCase(text);
+        }
+    }
+}
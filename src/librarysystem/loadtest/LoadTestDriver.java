@@ -0,0 +1,241 @@
+/**
+ * This class generates a synthetic library and then replays a mix of
+ * issue, return, search and list operations against LibraryController from
+ * many threads, reporting throughput and latency percentiles per operation.
+ *
+ * The defaults (100,000 books, 10,000 members, 200,000 loans and 100,000
+ * operations) finish in under a minute on a single core. Generating takes
+ * roughly 8 s per 100,000 books with their loans, and each search scans
+ * every book, so larger catalogs mostly slow the search share of the mix.
+ *
+ * Usage: LoadTestDriver [--books n] [--members n] [--loans n] [--days n]
+ *                       [--threads n] [--ops n] [--seed n] [--zipf s]
+ *                       [--mix issue=45,return=45,search=2,list=8]
+ *                       [--loan-limit n] [--export loans.csv.gz]
+ */
+package librarysystem.loadtest;
+
+import librarysystem.controllers.LibraryController;
+import librarysystem.export.ExportDataset;
+import librarysystem.fines.FineReport;
+import librarysystem.views.LibraryView;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.*;
+
+public class LoadTestDriver {
+    private enum Operation { ISSUE, RETURN, SEARCH, LIST }
+
+    private static final int RECOMMENDATION_SAMPLES = 1000;
+
+    private final LibraryController controller;
+    private final WorkloadGenerator generator;
+    private final int[] cumulativeWeights;
+
+    public LoadTestDriver(LibraryController controller, WorkloadGenerator generator, Map<Operation, Integer> mix) {
+        this.controller = controller;
+        this.generator = generator;
+        this.cumulativeWeights = new int[Operation.values().length];
+        int total = 0;
+        for (Operation operation : Operation.values()) {
+            total += mix.getOrDefault(operation, 0);
+            cumulativeWeights[operation.ordinal()] = total;
+        }
+        if (total <= 0) {
+            throw new IllegalArgumentException("The operation mix needs at least one positive weight");
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException, IOException {
+        Map<String, String> options = parseOptions(args);
+        int books = Integer.parseInt(options.getOrDefault("books", "100000"));
+        int members = Integer.parseInt(options.getOrDefault("members", "10000"));
+        int loans = Integer.parseInt(options.getOrDefault("loans", "200000"));
+        int days = Integer.parseInt(options.getOrDefault("days", "730"));
+        int threads = Integer.parseInt(options.getOrDefault("threads", "8"));
+        int ops = Integer.parseInt(options.getOrDefault("ops", "100000"));
+        long seed = Long.parseLong(options.getOrDefault("seed", "42"));
+        double zipf = Double.parseDouble(options.getOrDefault("zipf", "1.1"));
+        Map<Operation, Integer> mix = parseMix(options.getOrDefault("mix", "issue=45,return=45,search=2,list=8"));
+
+        LibraryController controller = new LibraryController(new LibraryView());
+        WorkloadGenerator generator = new WorkloadGenerator(seed, books, members, zipf);
+
+        long start = System.nanoTime();
+        int issued = generator.populate(controller, loans, days);
+        System.out.printf("Generated %d books, %d members and %d loans in %.2f s%n",
+                books, members, issued, (System.nanoTime() - start) / 1e9);
+        System.out.printf("Catalog holds %.1f MB off the heap%n", controller.getCatalogOffHeapBytes() / 1e6);
+        if (options.containsKey("loan-limit")) {
+            // Applied after populating, so only the replayed issues can be refused
+            controller.setDefaultLoanLimit(Integer.parseInt(options.get("loan-limit")));
+        }
+
+        new LoadTestDriver(controller, generator, mix).run(threads, ops, seed);
+
+        start = System.nanoTime();
+        FineReport report = controller.assessFines(LocalDate.now());
+        System.out.printf("Assessed fines on %d open loans (%d overdue) in %.1f ms%n",
+                report.getLoanCount(), report.getOverdueCount(), (System.nanoTime() - start) / 1e6);
+
+        start = System.nanoTime();
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int i = 0; i < RECOMMENDATION_SAMPLES; i++) {
+            controller.recommendBooks(generator.isbn(generator.popularBook(random)), 10);
+        }
+        System.out.printf("Recommended top 10 books for %d popular books in %.3f ms each%n",
+                RECOMMENDATION_SAMPLES, (System.nanoTime() - start) / 1e6 / RECOMMENDATION_SAMPLES);
+
+        if (options.containsKey("export")) {
+            start = System.nanoTime();
+            long rows = controller.export(ExportDataset.LOAN_HISTORY, Path.of(options.get("export")));
+            System.out.printf("Exported %d loans to %s in %.2f s%n",
+                    rows, options.get("export"), (System.nanoTime() - start) / 1e9);
+        }
+    }
+
+    /**
+     * Run the operation mix split evenly across threads and print the results
+     */
+    public void run(int threadCount, int totalOps, long seed) throws InterruptedException {
+        int opsPerThread = totalOps / threadCount;
+        Worker[] workers = new Worker[threadCount];
+        Thread[] threads = new Thread[threadCount];
+        SplittableRandom seeds = new SplittableRandom(seed);
+
+        for (int t = 0; t < threadCount; t++) {
+            workers[t] = new Worker(seeds.split(), opsPerThread);
+            threads[t] = new Thread(workers[t], "load-driver-" + t);
+        }
+
+        long start = System.nanoTime();
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        LatencyHistogram[] merged = new LatencyHistogram[Operation.values().length];
+        long[] rejected = new long[merged.length];
+        for (int i = 0; i < merged.length; i++) {
+            merged[i] = new LatencyHistogram();
+        }
+        for (Worker worker : workers) {
+            for (int i = 0; i < merged.length; i++) {
+                merged[i].merge(worker.latencies[i]);
+                rejected[i] += worker.rejected[i];
+            }
+        }
+
+        long completed = (long) opsPerThread * threadCount;
+        System.out.printf("Ran %d operations on %d threads in %.2f s (%.0f ops/s)%n",
+                completed, threadCount, seconds, completed / seconds);
+        System.out.printf("%-8s %10s %10s %10s %10s %10s %10s %10s%n",
+                "Op", "Count", "Rejected", "p50 us", "p90 us", "p99 us", "p99.9 us", "Max us");
+        for (Operation operation : Operation.values()) {
+            LatencyHistogram histogram = merged[operation.ordinal()];
+            if (histogram.getTotalCount() == 0) {
+                continue;
+            }
+            System.out.printf("%-8s %10d %10d %10.1f %10.1f %10.1f %10.1f %10.1f%n",
+                    operation, histogram.getTotalCount(), rejected[operation.ordinal()],
+                    histogram.percentile(0.50) / 1e3, histogram.percentile(0.90) / 1e3,
+                    histogram.percentile(0.99) / 1e3, histogram.percentile(0.999) / 1e3,
+                    histogram.getMax() / 1e3);
+        }
+    }
+
+    private Operation nextOperation(SplittableRandom random) {
+        int roll = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (Operation operation : Operation.values()) {
+            if (roll < cumulativeWeights[operation.ordinal()]) {
+                return operation;
+            }
+        }
+        throw new IllegalStateException("Unreachable");
+    }
+
+    /**
+     * One driver thread with its own random stream, histograms and the books it has borrowed
+     */
+    private final class Worker implements Runnable {
+        final SplittableRandom random;
+        final int ops;
+        final LatencyHistogram[] latencies = new LatencyHistogram[Operation.values().length];
+        final long[] rejected = new long[Operation.values().length];
+        final Deque<String> borrowed = new ArrayDeque<>();
+
+        Worker(SplittableRandom random, int ops) {
+            this.random = random;
+            this.ops = ops;
+            for (int i = 0; i < latencies.length; i++) {
+                latencies[i] = new LatencyHistogram();
+            }
+        }
+
+        @Override
+        public void run() {
+            for (int i = 0; i < ops; i++) {
+                Operation operation = nextOperation(random);
+                long start = System.nanoTime();
+                boolean accepted = execute(operation);
+                latencies[operation.ordinal()].record(System.nanoTime() - start);
+                if (!accepted) {
+                    rejected[operation.ordinal()]++;
+                }
+            }
+        }
+
+        private boolean execute(Operation operation) {
+            try {
+                switch (operation) {
+                    case ISSUE:
+                        String isbn = generator.isbn(generator.popularBook(random));
+                        controller.issueBook(generator.memberId(generator.randomMember(random)), isbn);
+                        borrowed.push(isbn);
+                        return true;
+                    case RETURN:
+                        String toReturn = borrowed.isEmpty()
+                                ? generator.isbn(generator.popularBook(random))
+                                : borrowed.poll();
+                        controller.returnBook(toReturn);
+                        return true;
+                    case SEARCH:
+                        controller.searchBooksByTitle(generator.searchTerm(random));
+                        return true;
+                    case LIST:
+                        controller.getActiveLoans(generator.memberId(generator.randomMember(random)));
+                        return true;
+                    default:
+                        return false;
+                }
+            } catch (IllegalArgumentException | IllegalStateException e) {
+                return false;
+            }
+        }
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Expected an option but got: " + args[i]);
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        return options;
+    }
+
+    private static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String part : mix.split(",")) {
+            String[] pair = part.split("=");
+            weights.put(Operation.valueOf(pair[0].trim().toUpperCase()), Integer.parseInt(pair[1].trim()));
+        }
+        return weights;
+    }
+}
@@ -0,0 +1,216 @@
+/**
+ * This class generates a deterministic synthetic library: books, members
+ * and a loan history in which title popularity follows a Zipf distribution.
+ * Every record is derived from the seed and its index alone, so the same
+ * seed always produces the same library regardless of generation order.
+ */
+package librarysystem.loadtest;
+
+import librarysystem.controllers.LibraryController;
+import librarysystem.models.Book;
+import librarysystem.models.Member;
+
+import java.time.LocalDate;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+
+public class WorkloadGenerator {
+    private static final String[] TITLE_ADJECTIVES = {
+            "Silent", "Broken", "Golden", "Hidden", "Last", "Lost", "Crimson", "Distant", "Endless",
+            "Forgotten", "Quiet", "Burning", "Frozen", "Secret", "Wandering", "Little", "Dark", "Bright"
+    };
+    private static final String[] TITLE_NOUNS = {
+            "River", "Garden", "Empire", "Kingdom", "Winter", "Harbor", "Mountain", "Letter", "Station",
+            "Orchard", "Journey", "Shadow", "Island", "Promise", "Mirror", "Storm", "Lantern", "Forest",
+            "Algorithm", "Network", "System", "Compiler", "Database", "Protocol", "Machine", "War", "Peace"
+    };
+    private static final String[] FIRST_NAMES = {
+            "Aarav", "Maya", "Leo", "Sofia", "Arjun", "Emma", "Noah", "Isha", "Lucas", "Anaya", "Ethan",
+            "Priya", "Oliver", "Zara", "Kabir", "Chloe", "Ravi", "Hana", "Mateo", "Nina", "Omar", "Elena"
+    };
+    private static final String[] LAST_NAMES = {
+            "Sharma", "Smith", "Garcia", "Tanaka", "Rawat", "Müller", "Rossi", "Kim", "Patel", "Nguyen",
+            "Silva", "Ivanova", "Cohen", "Okafor", "Dubois", "Larsen", "Khan", "Novak", "Costa", "Singh"
+    };
+    private static final String[] CATEGORIES = {
+            "Fiction", "Technical", "History", "Historical Fiction", "Science", "Biography", "Poetry",
+            "Children", "Mystery", "Philosophy"
+    };
+
+    private static final int MIN_LOAN_DAYS = 7;
+    private static final int MAX_LOAN_DAYS = 35;
+    // Share of loans kept far past their due date, so there is something to fine
+    private static final double OVERDUE_SHARE = 0.05;
+    private static final int ISSUE_ATTEMPTS = 4;
+
+    private final long seed;
+    private final int bookCount;
+    private final int memberCount;
+    private final int authorCount;
+    private final ZipfDistribution popularity;
+
+    public WorkloadGenerator(long seed, int bookCount, int memberCount, double zipfExponent) {
+        this.seed = seed;
+        this.bookCount = bookCount;
+        this.memberCount = memberCount;
+        // Roughly ten books per author, so author searches return several titles;
+        // names repeat once there are more authors than name combinations
+        this.authorCount = Math.max(1, bookCount / 10);
+        this.popularity = new ZipfDistribution(bookCount, zipfExponent);
+    }
+
+    public int getBookCount() {
+        return bookCount;
+    }
+
+    public int getMemberCount() {
+        return memberCount;
+    }
+
+    /**
+     * Get the ISBN-13 of the book at the given index
+     */
+    public String isbn(int index) {
+        StringBuilder body = padded(new StringBuilder(13).append("978"), index, 9);
+        int sum = 0;
+        for (int i = 0; i < 12; i++) {
+            sum += (body.charAt(i) - '0') * (i % 2 == 0 ? 1 : 3);
+        }
+        return body.append((10 - sum % 10) % 10).toString();
+    }
+
+    public String memberId(int index) {
+        return padded(new StringBuilder(8).append('M'), index + 1, 7).toString();
+    }
+
+    public Book book(int index) {
+        SplittableRandom random = randomFor(index, 0x5851F42D4C957F2DL);
+        String title = "The " + pick(random, TITLE_ADJECTIVES) + " " + pick(random, TITLE_NOUNS)
+                + " of " + pick(random, TITLE_NOUNS) + " " + (index % 997 + 1);
+        String author = authorName(random.nextInt(authorCount));
+        return new Book(isbn(index), title, author, pick(random, CATEGORIES), 1850 + random.nextInt(176));
+    }
+
+    public Member member(int index) {
+        SplittableRandom random = randomFor(index, 0x2545F4914F6CDD1DL);
+        String first = pick(random, FIRST_NAMES);
+        String last = pick(random, LAST_NAMES);
+        String email = (first + "." + last + "." + (index + 1) + "@example.org").toLowerCase();
+        StringBuilder phone = padded(new StringBuilder(12), random.nextInt(1000), 3).append('-');
+        padded(phone, random.nextInt(10000), 4).append('-');
+        padded(phone, random.nextInt(1000), 3);
+        return new Member(memberId(index), first + " " + last, email, phone.toString());
+    }
+
+    /**
+     * Draw a book index, popular titles far more often than the long tail
+     */
+    public int popularBook(SplittableRandom random) {
+        return popularity.sample(random) - 1;
+    }
+
+    public int randomMember(SplittableRandom random) {
+        return random.nextInt(memberCount);
+    }
+
+    /**
+     * Draw a single title word to search for
+     */
+    public String searchTerm(SplittableRandom random) {
+        return random.nextBoolean() ? pick(random, TITLE_NOUNS) : pick(random, TITLE_ADJECTIVES);
+    }
+
+    /**
+     * Add every book and member to the controller, then replay a loan
+     * history spread evenly over the given number of days up to today.
+     * Returns the number of loans issued.
+     */
+    public int populate(LibraryController controller, int loanCount, int historyDays) {
+        for (int i = 0; i < bookCount; i++) {
+            controller.addBook(book(i));
+        }
+        for (int i = 0; i < memberCount; i++) {
+            controller.addMember(member(i));
+        }
+
+        SplittableRandom random = new SplittableRandom(seed);
+        long today = LocalDate.now().toEpochDay();
+        long firstDay = today - historyDays;
+        PriorityQueue<PendingReturn> pending = new PriorityQueue<>();
+        int issued = 0;
+
+        for (int i = 0; i < loanCount; i++) {
+            long day = firstDay + (long) i * historyDays / Math.max(1, loanCount);
+            returnDue(controller, pending, day);
+
+            String memberId = memberId(randomMember(random));
+            for (int attempt = 0; attempt < ISSUE_ATTEMPTS; attempt++) {
+                String isbn = isbn(popularBook(random));
+                try {
+                    controller.issueBook(memberId, isbn, LocalDate.ofEpochDay(day));
+                } catch (IllegalArgumentException | IllegalStateException e) {
+                    // Already out or the member cannot borrow more; try another title
+                    continue;
+                }
+                int length = random.nextDouble() < OVERDUE_SHARE
+                        ? MAX_LOAN_DAYS + random.nextInt(4 * MAX_LOAN_DAYS)
+                        : MIN_LOAN_DAYS + random.nextInt(MAX_LOAN_DAYS - MIN_LOAN_DAYS);
+                pending.add(new PendingReturn(day + length, isbn));
+                issued++;
+                break;
+            }
+        }
+
+        // Loans due after today stay open
+        returnDue(controller, pending, today);
+        return issued;
+    }
+
+    private void returnDue(LibraryController controller, PriorityQueue<PendingReturn> pending, long day) {
+        while (!pending.isEmpty() && pending.peek().day <= day) {
+            PendingReturn due = pending.poll();
+            controller.returnBook(due.isbn, LocalDate.ofEpochDay(due.day));
+        }
+    }
+
+    private String authorName(int authorIndex) {
+        SplittableRandom random = randomFor(authorIndex, 0x9E3779B97F4A7C15L);
+        char initial = (char) ('A' + authorIndex % 26);
+        return pick(random, FIRST_NAMES) + " " + initial + ". " + pick(random, LAST_NAMES);
+    }
+
+    private SplittableRandom randomFor(int index, long salt) {
+        return new SplittableRandom(seed ^ (index * salt));
+    }
+
+    /**
+     * Append a non-negative number zero-padded to the given width; String.format
+     * is too slow to call for every generated record
+     */
+    private static StringBuilder padded(StringBuilder target, int value, int width) {
+        String digits = Integer.toString(value);
+        for (int i = digits.length(); i < width; i++) {
+            target.append('0');
+        }
+        return target.append(digits);
+    }
+
+    private static String pick(SplittableRandom random, String[] words) {
+        return words[random.nextInt(words.length)];
+    }
+
+    private static final class PendingReturn implements Comparable<PendingReturn> {
+        final long day;
+        final String isbn;
+
+        PendingReturn(long day, String isbn) {
+            this.day = day;
+            this.isbn = isbn;
+        }
+
+        @Override
+        public int compareTo(PendingReturn other) {
+            return Long.compare(day, other.day);
+        }
+    }
+}
@@ -1,20 +1,22 @@
 /**
  * This class stores all the information related to a book
  * and implements Comparable for natural ordering by title.
+ *
+ * The ISBN is validated and kept in canonical ISBN-13 form, so books are
+ * equal when their ISBNs are, however they were written.
  */
 package librarysystem.models;
 
-import java.util.Objects;
-
 public class Book implements Comparable<Book> {
     private String isbn;
+    private long isbnKey;
     private String title;
     private String author;
     private String category;
     private int publicationYear;
 
     public Book(String isbn, String title, String author, String category, int publicationYear) {
-        this.isbn = isbn;
+        assignIsbn(isbn);
         this.title = title;
         this.author = author;
         this.category = category;
@@ -25,8 +27,24 @@ public class Book implements Comparable<Book> {
         return isbn;
     }
 
+    /**
+     * Set the ISBN from ISBN-10 or ISBN-13 text, throwing IllegalArgumentException if it is invalid
+     */
     public void setIsbn(String isbn) {
-        this.isbn = isbn;
+        assignIsbn(isbn);
+    }
+
+    private void assignIsbn(String isbn) {
+        Isbn canonical = Isbn.parse(isbn);
+        this.isbn = canonical.toString();
+        this.isbnKey = canonical.getKey();
+    }
+
+    /**
+     * Get the ISBN packed into a long, see Isbn
+     */
+    public long getIsbnKey() {
+        return isbnKey;
     }
 
     public String getTitle() {
@@ -77,7 +95,7 @@ public class Book implements Comparable<Book> {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Book book = (Book) o;
-        return Objects.equals(isbn, book.isbn);
+        return isbnKey == book.isbnKey;
     }
 
     /**
@@ -85,7 +103,7 @@ public class Book implements Comparable<Book> {
      */
     @Override
     public int hashCode() {
-        return Objects.hash(isbn);
+        return Long.hashCode(isbnKey);
     }
 
     @Override
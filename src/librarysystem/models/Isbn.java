@@ -0,0 +1,145 @@
+/**
+ * This class is a validated ISBN in canonical ISBN-13 form. It accepts
+ * ISBN-10 or ISBN-13 text with or without hyphens or spaces (and an
+ * optional "ISBN", "ISBN-10" or "ISBN-13" prefix with or without a colon),
+ * checks the check digit, converts ISBN-10 to
+ * ISBN-13 and packs the 13 digits into a long. Two spellings of the same
+ * book therefore always give the same key.
+ */
+package librarysystem.models;
+
+public final class Isbn implements Comparable<Isbn> {
+    private static final long ISBN13_MIN = 978_000_000_000_0L;
+    private static final long ISBN13_MAX = 979_999_999_999_9L;
+
+    private final long key;
+
+    private Isbn(long key) {
+        this.key = key;
+    }
+
+    /**
+     * Parse an ISBN, throwing IllegalArgumentException if it is not valid
+     */
+    public static Isbn parse(String text) {
+        long key = toKey(text);
+        if (key < 0) {
+            throw new IllegalArgumentException("Invalid ISBN: " + text
+                    + " (expected 10 or 13 digits with a correct check digit)");
+        }
+        return new Isbn(key);
+    }
+
+    /**
+     * Get the packed ISBN-13 for the text, or -1 if it is not a valid ISBN.
+     * Allocates nothing, so it suits lookups on hot paths.
+     */
+    public static long toKey(String text) {
+        if (text == null) {
+            return -1;
+        }
+
+        int start = 0;
+        int end = text.length();
+        while (start < end && Character.isWhitespace(text.charAt(start))) {
+            start++;
+        }
+        if (text.regionMatches(true, start, "ISBN", 0, 4)) {
+            start += 4;
+            if (text.startsWith("-10", start) || text.startsWith("-13", start)) {
+                start += 3;
+            }
+            while (start < end && text.charAt(start) == ' ') {
+                start++;
+            }
+            if (start < end && text.charAt(start) == ':') {
+                start++;
+            }
+        }
+
+        long digits = 0;
+        int count = 0;
+        int weighted10 = 0;
+        int weighted13 = 0;
+        boolean xCheck = false;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c == '-' || c == ' ') {
+                continue;
+            }
+            if (xCheck || count == 13) {
+                return -1;
+            }
+            int digit;
+            if (c >= '0' && c <= '9') {
+                digit = c - '0';
+            } else if ((c == 'X' || c == 'x') && count == 9) {
+                // Only an ISBN-10 check digit can be X, meaning 10
+                digit = 10;
+                xCheck = true;
+            } else {
+                return -1;
+            }
+            weighted10 += (10 - count) * digit;
+            weighted13 += (count % 2 == 0 ? 1 : 3) * digit;
+            digits = digits * 10 + digit;
+            count++;
+        }
+
+        if (count == 10) {
+            if (weighted10 % 11 != 0) {
+                return -1;
+            }
+            // Drop the ISBN-10 check digit, prefix 978 and compute the ISBN-13 one
+            long body = 978_000_000_000L + (xCheck ? (digits - 10) / 10 : digits / 10);
+            return body * 10 + checkDigit13(body);
+        }
+        if (count == 13 && !xCheck && weighted13 % 10 == 0 && digits >= ISBN13_MIN && digits <= ISBN13_MAX) {
+            return digits;
+        }
+        return -1;
+    }
+
+    /**
+     * Get the canonical 13-digit form of the text, or throw if it is not a valid ISBN
+     */
+    public static String normalize(String text) {
+        return parse(text).toString();
+    }
+
+    public long getKey() {
+        return key;
+    }
+
+    private static int checkDigit13(long body) {
+        int sum = 0;
+        for (int position = 11; position >= 0; position--) {
+            int digit = (int) (body % 10);
+            sum += (position % 2 == 0 ? 1 : 3) * digit;
+            body /= 10;
+        }
+        return (10 - sum % 10) % 10;
+    }
+
+    @Override
+    public int compareTo(Isbn other) {
+        return Long.compare(key, other.key);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        return key == ((Isbn) o).key;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(key);
+    }
+
+    @Override
+    public String toString() {
+        return Long.toString(key);
+    }
+}
@@ -0,0 +1,109 @@
+/**
+ * This class keeps the counts the query planner uses to estimate how many
+ * books a condition will match: the number of books, how many are on
+ * loan, a histogram of publication years and the number of books in each
+ * category. Title and author prefixes are counted by the autocomplete
+ * tries, which already hold every title and author.
+ *
+ * Like the rest of the library state it is updated under the controller's
+ * lock.
+ */
+package librarysystem.query;
+
+import librarysystem.index.PrefixIndex;
+import librarysystem.models.Book;
+
+import java.util.*;
+
+public class CatalogStatistics {
+    private final PrefixIndex titles;
+    private final PrefixIndex authors;
+    private final TreeMap<Integer, Integer> booksByYear = new TreeMap<>();
+    private final Map<String, Integer> booksByCategory = new HashMap<>();
+    private int bookCount;
+    private int loanedCount;
+
+    public CatalogStatistics(PrefixIndex titles, PrefixIndex authors) {
+        this.titles = titles;
+        this.authors = authors;
+    }
+
+    public void bookAdded(Book book) {
+        bookCount++;
+        booksByYear.merge(book.getPublicationYear(), 1, Integer::sum);
+        booksByCategory.merge(normalize(book.getCategory()), 1, Integer::sum);
+    }
+
+    public void bookRemoved(Book book) {
+        bookCount--;
+        decrement(booksByYear, book.getPublicationYear());
+        decrement(booksByCategory, normalize(book.getCategory()));
+    }
+
+    public void bookLoaned() {
+        loanedCount++;
+    }
+
+    public void bookReturned() {
+        loanedCount--;
+    }
+
+    public int getBookCount() {
+        return bookCount;
+    }
+
+    public int getLoanedCount() {
+        return loanedCount;
+    }
+
+    /**
+     * Count the books published in the given year range, both ends included
+     */
+    public int countYears(int from, int to) {
+        if (from > to) {
+            return 0;
+        }
+        int count = 0;
+        for (int books : booksByYear.subMap(from, true, to, true).values()) {
+            count += books;
+        }
+        return count;
+    }
+
+    /**
+     * Count the books whose category matches exactly, ignoring case
+     */
+    public int countCategory(String category) {
+        return booksByCategory.getOrDefault(normalize(category), 0);
+    }
+
+    /**
+     * Count the books whose category starts with the prefix, ignoring case
+     */
+    public int countCategoryPrefix(String prefix) {
+        String key = normalize(prefix);
+        int count = 0;
+        for (Map.Entry<String, Integer> entry : booksByCategory.entrySet()) {
+            if (entry.getKey().startsWith(key)) {
+                count += entry.getValue();
+            }
+        }
+        return count;
+    }
+
+    public int countTitlePrefix(String prefix) {
+        return titles.countWithPrefix(prefix);
+    }
+
+    public int countAuthorPrefix(String prefix) {
+        return authors.countWithPrefix(prefix);
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static <K> void decrement(Map<K, Integer> counts, K key) {
+        counts.computeIfPresent(key, (k, count) -> count == 1 ? null : count - 1);
+    }
+}
@@ -0,0 +1,394 @@
+/**
+ * This class is a node of a compiled book query. Leaves test one condition
+ * against a catalog record (a field match, a year comparison or whether
+ * the book is on loan) and inner nodes combine them with AND, OR and NOT.
+ *
+ * Besides testing records, every node estimates the fraction of books it
+ * matches from the catalog statistics and the relative cost of testing it
+ * on one record, which is what the planner uses to choose an access path
+ * and order the filters.
+ */
+package librarysystem.query;
+
+import librarysystem.index.LongIntHashMap;
+import librarysystem.models.Isbn;
+import librarysystem.storage.BookRecord;
+
+import java.util.*;
+
+public abstract class QueryNode {
+    // Used where the statistics cannot tell how often a text occurs inside a field
+    static final double CONTAINS_SELECTIVITY = 0.05;
+    static final double ISBN_PREFIX_SELECTIVITY = 0.1;
+
+    /**
+     * Test a book; loaned holds the packed ISBNs on loan, if the query asks about loans
+     */
+    public abstract boolean test(BookRecord book, LongIntHashMap loaned);
+
+    /**
+     * Estimate the fraction of books this matches, between 0 and 1
+     */
+    public abstract double selectivity(CatalogStatistics statistics);
+
+    /**
+     * Estimate the cost of testing one book, relative to reading a record
+     */
+    public abstract double cost();
+
+    /**
+     * Check whether testing needs to know which books are on loan
+     */
+    public boolean usesLoans() {
+        return false;
+    }
+
+    /**
+     * Render the node back in query syntax
+     */
+    @Override
+    public abstract String toString();
+
+    static double fraction(int count, CatalogStatistics statistics) {
+        int books = statistics.getBookCount();
+        return books == 0 ? 0 : Math.min(1.0, (double) count / books);
+    }
+
+    /**
+     * The fields a text condition can look at
+     */
+    enum Field {
+        ISBN, TITLE, AUTHOR, CATEGORY;
+
+        String read(BookRecord book) {
+            switch (this) {
+                case ISBN:
+                    return book.getIsbn();
+                case TITLE:
+                    return book.getTitle();
+                case AUTHOR:
+                    return book.getAuthor();
+                default:
+                    return book.getCategory();
+            }
+        }
+
+        String label() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    enum MatchMode { EQUALS, PREFIX, CONTAINS }
+
+    /**
+     * A field equal to, starting with or containing a text, ignoring case
+     */
+    static final class Match extends QueryNode {
+        final Field field;
+        final MatchMode mode;
+        final String text;
+        // The packed ISBN for an exact isbn match, compared without decoding the record
+        final long isbnKey;
+
+        Match(Field field, MatchMode mode, String text) {
+            this.field = field;
+            this.mode = mode;
+            this.text = text;
+            this.isbnKey = field == Field.ISBN && mode == MatchMode.EQUALS ? Isbn.parse(text).getKey() : -1;
+        }
+
+        @Override
+        public boolean test(BookRecord book, LongIntHashMap loaned) {
+            switch (mode) {
+                case EQUALS:
+                    return field == Field.ISBN ? book.getIsbnKey() == isbnKey
+                            : field.read(book).trim().equalsIgnoreCase(text);
+                case PREFIX:
+                    return field.read(book).trim().regionMatches(true, 0, text, 0, text.length());
+                default:
+                    if (field == Field.TITLE) {
+                        return book.titleContains(text);
+                    }
+                    if (field == Field.AUTHOR) {
+                        return book.authorContains(text);
+                    }
+                    return field.read(book).toLowerCase(Locale.ROOT).contains(text.toLowerCase(Locale.ROOT));
+            }
+        }
+
+        @Override
+        public double selectivity(CatalogStatistics statistics) {
+            switch (field) {
+                case ISBN:
+                    return mode == MatchMode.EQUALS ? fraction(1, statistics) : ISBN_PREFIX_SELECTIVITY;
+                case CATEGORY:
+                    return fraction(mode == MatchMode.EQUALS ? statistics.countCategory(text)
+                            : statistics.countCategoryPrefix(text), statistics);
+                default:
+                    int prefixed = field == Field.TITLE ? statistics.countTitlePrefix(text)
+                            : statistics.countAuthorPrefix(text);
+                    if (mode == MatchMode.CONTAINS) {
+                        // Every field starting with the text also contains it
+                        return Math.max(CONTAINS_SELECTIVITY, fraction(prefixed, statistics));
+                    }
+                    return fraction(prefixed, statistics);
+            }
+        }
+
+        @Override
+        public double cost() {
+            switch (mode) {
+                case EQUALS:
+                    return 2;
+                case PREFIX:
+                    return 3;
+                default:
+                    return 8;
+            }
+        }
+
+        @Override
+        public String toString() {
+            String value = text.matches("[\\p{L}\\p{N}_.\\-']+") ? text : "\"" + text + "\"";
+            return field.label() + ":" + value + (mode == MatchMode.PREFIX ? "*" : "");
+        }
+    }
+
+    /**
+     * A comparison of the publication year
+     */
+    static final class YearCompare extends QueryNode {
+        final String operator;
+        final int year;
+
+        YearCompare(String operator, int year) {
+            this.operator = operator;
+            this.year = year;
+        }
+
+        @Override
+        public boolean test(BookRecord book, LongIntHashMap loaned) {
+            int published = book.getPublicationYear();
+            switch (operator) {
+                case "<":
+                    return published < year;
+                case "<=":
+                    return published <= year;
+                case ">":
+                    return published > year;
+                case ">=":
+                    return published >= year;
+                default:
+                    return published == year;
+            }
+        }
+
+        @Override
+        public double selectivity(CatalogStatistics statistics) {
+            int count;
+            switch (operator) {
+                case "<":
+                    count = statistics.countYears(Integer.MIN_VALUE, year - 1);
+                    break;
+                case "<=":
+                    count = statistics.countYears(Integer.MIN_VALUE, year);
+                    break;
+                case ">":
+                    count = statistics.countYears(year + 1, Integer.MAX_VALUE);
+                    break;
+                case ">=":
+                    count = statistics.countYears(year, Integer.MAX_VALUE);
+                    break;
+                default:
+                    count = statistics.countYears(year, year);
+            }
+            return fraction(count, statistics);
+        }
+
+        @Override
+        public double cost() {
+            return 1;
+        }
+
+        @Override
+        public String toString() {
+            return "year" + operator + year;
+        }
+    }
+
+    /**
+     * Whether the book is on loan or available
+     */
+    static final class Loaned extends QueryNode {
+        final boolean loaned;
+
+        Loaned(boolean loaned) {
+            this.loaned = loaned;
+        }
+
+        @Override
+        public boolean test(BookRecord book, LongIntHashMap loanedIsbns) {
+            return loanedIsbns.containsKey(book.getIsbnKey()) == loaned;
+        }
+
+        @Override
+        public double selectivity(CatalogStatistics statistics) {
+            double onLoan = fraction(statistics.getLoanedCount(), statistics);
+            return loaned ? onLoan : 1 - onLoan;
+        }
+
+        @Override
+        public double cost() {
+            return 3;
+        }
+
+        @Override
+        public boolean usesLoans() {
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            return loaned ? "loaned" : "available";
+        }
+    }
+
+    /**
+     * Every child matches; children are tested in order and stop at the first miss
+     */
+    static final class And extends QueryNode {
+        final List<QueryNode> children;
+
+        And(List<QueryNode> children) {
+            this.children = children;
+        }
+
+        @Override
+        public boolean test(BookRecord book, LongIntHashMap loaned) {
+            for (QueryNode child : children) {
+                if (!child.test(book, loaned)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public double selectivity(CatalogStatistics statistics) {
+            double selectivity = 1;
+            for (QueryNode child : children) {
+                selectivity *= child.selectivity(statistics);
+            }
+            return selectivity;
+        }
+
+        @Override
+        public double cost() {
+            double cost = 0;
+            for (QueryNode child : children) {
+                cost += child.cost();
+            }
+            return cost;
+        }
+
+        @Override
+        public boolean usesLoans() {
+            return children.stream().anyMatch(QueryNode::usesLoans);
+        }
+
+        @Override
+        public String toString() {
+            return "(" + join(children, " AND ") + ")";
+        }
+    }
+
+    /**
+     * Any child matches
+     */
+    static final class Or extends QueryNode {
+        final List<QueryNode> children;
+
+        Or(List<QueryNode> children) {
+            this.children = children;
+        }
+
+        @Override
+        public boolean test(BookRecord book, LongIntHashMap loaned) {
+            for (QueryNode child : children) {
+                if (child.test(book, loaned)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public double selectivity(CatalogStatistics statistics) {
+            double missed = 1;
+            for (QueryNode child : children) {
+                missed *= 1 - child.selectivity(statistics);
+            }
+            return 1 - missed;
+        }
+
+        @Override
+        public double cost() {
+            double cost = 0;
+            for (QueryNode child : children) {
+                cost += child.cost();
+            }
+            return cost;
+        }
+
+        @Override
+        public boolean usesLoans() {
+            return children.stream().anyMatch(QueryNode::usesLoans);
+        }
+
+        @Override
+        public String toString() {
+            return "(" + join(children, " OR ") + ")";
+        }
+    }
+
+    static final class Not extends QueryNode {
+        final QueryNode child;
+
+        Not(QueryNode child) {
+            this.child = child;
+        }
+
+        @Override
+        public boolean test(BookRecord book, LongIntHashMap loaned) {
+            return !child.test(book, loaned);
+        }
+
+        @Override
+        public double selectivity(CatalogStatistics statistics) {
+            return 1 - child.selectivity(statistics);
+        }
+
+        @Override
+        public double cost() {
+            return child.cost();
+        }
+
+        @Override
+        public boolean usesLoans() {
+            return child.usesLoans();
+        }
+
+        @Override
+        public String toString() {
+            return "NOT " + child;
+        }
+    }
+
+    private static String join(List<QueryNode> nodes, String separator) {
+        StringJoiner joined = new StringJoiner(separator);
+        for (QueryNode node : nodes) {
+            joined.add(node.toString());
+        }
+        return joined.toString();
+    }
+}
@@ -0,0 +1,243 @@
+/**
+ * This class compiles query text into a tree of QueryNodes. The language:
+ *
+ *   author:tolstoy AND year<1900 AND available
+ *   title:"war and peace" OR (category:history NOT loaned)
+ *
+ * - field:value matches isbn and category exactly, and title and author
+ *   when they contain the value; a trailing * (title:war*) matches fields
+ *   starting with the value instead. Quote values containing spaces. An
+ *   exact isbn may be written in any ISBN-10 or ISBN-13 form.
+ * - year can be compared with <, <=, >, >= and = (or year:1999).
+ * - available and loaned test whether a book is on loan.
+ * - A plain word matches books whose title or author contains it.
+ * - Terms are combined with AND, OR, NOT and parentheses; AND binds
+ *   tighter than OR, and terms written side by side are ANDed.
+ *
+ * Matching ignores case. Keywords are not case sensitive; quote a word to
+ * search for it literally, e.g. "and".
+ */
+package librarysystem.query;
+
+import librarysystem.models.Isbn;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+public class QueryParser {
+    private final List<String> tokens;
+    private int position;
+
+    private QueryParser(List<String> tokens) {
+        this.tokens = tokens;
+    }
+
+    /**
+     * Compile a query, throwing IllegalArgumentException with the reason if it is malformed
+     */
+    public static QueryNode parse(String text) {
+        QueryParser parser = new QueryParser(tokenize(text));
+        if (parser.tokens.isEmpty()) {
+            throw new IllegalArgumentException("Please enter a query.");
+        }
+        QueryNode query = parser.parseOr();
+        if (parser.position < parser.tokens.size()) {
+            throw new IllegalArgumentException("Unexpected '" + parser.peek() + "' in query");
+        }
+        return query;
+    }
+
+    private QueryNode parseOr() {
+        List<QueryNode> children = new ArrayList<>();
+        children.add(parseAnd());
+        while (isKeyword("OR")) {
+            position++;
+            children.add(parseAnd());
+        }
+        return children.size() == 1 ? children.get(0) : new QueryNode.Or(children);
+    }
+
+    private QueryNode parseAnd() {
+        List<QueryNode> children = new ArrayList<>();
+        children.add(parseUnary());
+        while (position < tokens.size() && !isKeyword("OR") && !peek().equals(")")) {
+            if (isKeyword("AND")) {
+                position++;
+            }
+            children.add(parseUnary());
+        }
+        return children.size() == 1 ? children.get(0) : new QueryNode.And(children);
+    }
+
+    private QueryNode parseUnary() {
+        if (position >= tokens.size()) {
+            throw new IllegalArgumentException("Query ends too early");
+        }
+        if (isKeyword("NOT")) {
+            position++;
+            return new QueryNode.Not(parseUnary());
+        }
+        if (peek().equals("(")) {
+            position++;
+            QueryNode inner = parseOr();
+            expect(")");
+            return inner;
+        }
+        return parseTerm();
+    }
+
+    private QueryNode parseTerm() {
+        String word = next();
+        if (isOperator(word) || word.equals(")") || word.equals(":")) {
+            throw new IllegalArgumentException("Unexpected '" + word + "' in query");
+        }
+
+        if (position < tokens.size() && (peek().equals(":") || isOperator(peek()))) {
+            String operator = next();
+            return fieldTerm(word.toLowerCase(Locale.ROOT), operator, value());
+        }
+
+        if (!isQuoted(word)) {
+            switch (word.toLowerCase(Locale.ROOT)) {
+                case "available":
+                    return new QueryNode.Loaned(false);
+                case "loaned":
+                    return new QueryNode.Loaned(true);
+            }
+        }
+        String text = unquote(word);
+        List<QueryNode> either = new ArrayList<>();
+        either.add(new QueryNode.Match(QueryNode.Field.TITLE, QueryNode.MatchMode.CONTAINS, text));
+        either.add(new QueryNode.Match(QueryNode.Field.AUTHOR, QueryNode.MatchMode.CONTAINS, text));
+        return new QueryNode.Or(either);
+    }
+
+    private QueryNode fieldTerm(String field, String operator, String value) {
+        if (field.equals("year")) {
+            try {
+                return new QueryNode.YearCompare(operator.equals(":") ? "=" : operator,
+                        Integer.parseInt(unquote(value)));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("year must be compared with a whole number, not " + value);
+            }
+        }
+
+        QueryNode.Field target;
+        QueryNode.MatchMode mode;
+        switch (field) {
+            case "isbn":
+                target = QueryNode.Field.ISBN;
+                mode = QueryNode.MatchMode.EQUALS;
+                break;
+            case "category":
+                target = QueryNode.Field.CATEGORY;
+                mode = QueryNode.MatchMode.EQUALS;
+                break;
+            case "title":
+                target = QueryNode.Field.TITLE;
+                mode = QueryNode.MatchMode.CONTAINS;
+                break;
+            case "author":
+                target = QueryNode.Field.AUTHOR;
+                mode = QueryNode.MatchMode.CONTAINS;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown field '" + field
+                        + "'. Use isbn, title, author, category or year.");
+        }
+        if (!operator.equals(":") && !operator.equals("=")) {
+            throw new IllegalArgumentException("Only year can be compared with " + operator);
+        }
+
+        String text = unquote(value);
+        if (!isQuoted(value) && text.length() > 1 && text.endsWith("*")) {
+            mode = QueryNode.MatchMode.PREFIX;
+            text = text.substring(0, text.length() - 1);
+        } else if (target == QueryNode.Field.ISBN) {
+            // Match any spelling of the ISBN, ISBN-10 or ISBN-13, with or without hyphens
+            text = Isbn.normalize(text);
+        }
+        return new QueryNode.Match(target, mode, text);
+    }
+
+    private String value() {
+        if (position >= tokens.size()) {
+            throw new IllegalArgumentException("Query ends too early");
+        }
+        String value = next();
+        if (!isQuoted(value) && (value.equals("(") || value.equals(")") || value.equals(":") || isOperator(value))) {
+            throw new IllegalArgumentException("Missing value before '" + value + "'");
+        }
+        return value;
+    }
+
+    private boolean isKeyword(String keyword) {
+        return position < tokens.size() && peek().equalsIgnoreCase(keyword);
+    }
+
+    private String peek() {
+        return tokens.get(position);
+    }
+
+    private String next() {
+        return tokens.get(position++);
+    }
+
+    private void expect(String token) {
+        if (position >= tokens.size() || !peek().equals(token)) {
+            throw new IllegalArgumentException("Missing '" + token + "' in query");
+        }
+        position++;
+    }
+
+    private static boolean isOperator(String token) {
+        return token.equals("<") || token.equals("<=") || token.equals(">") || token.equals(">=")
+                || token.equals("=");
+    }
+
+    private static boolean isQuoted(String token) {
+        return token.startsWith("\"");
+    }
+
+    private static String unquote(String token) {
+        return isQuoted(token) ? token.substring(1) : token;
+    }
+
+    /**
+     * Split into words, quoted strings (kept with their opening quote),
+     * parentheses, colons and comparison operators
+     */
+    private static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        int i = 0;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '"') {
+                int end = text.indexOf('"', i + 1);
+                if (end < 0) {
+                    throw new IllegalArgumentException("Missing closing quote in query");
+                }
+                tokens.add(text.substring(i, end));
+                i = end + 1;
+            } else if (c == '(' || c == ')' || c == ':' || c == '=') {
+                tokens.add(String.valueOf(c));
+                i++;
+            } else if (c == '<' || c == '>') {
+                boolean orEqual = i + 1 < text.length() && text.charAt(i + 1) == '=';
+                tokens.add(orEqual ? c + "=" : String.valueOf(c));
+                i += orEqual ? 2 : 1;
+            } else {
+                int start = i;
+                while (i < text.length() && !Character.isWhitespace(text.charAt(i))
+                        && "\"():=<>".indexOf(text.charAt(i)) < 0) {
+                    i++;
+                }
+                tokens.add(text.substring(start, i));
+            }
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,120 @@
+/**
+ * This class is the plan chosen for a query: where candidate books come
+ * from (one ISBN from the hash index, the books on loan, or a scan of the
+ * whole catalog) and the filters left to test on each candidate, cheapest
+ * and most selective first. It also keeps the estimates behind the choice
+ * so that explain() can show them.
+ */
+package librarysystem.query;
+
+import librarysystem.index.LongIntHashMap;
+import librarysystem.storage.BookRecord;
+
+import java.util.List;
+
+public class QueryPlan {
+    public enum AccessPath {
+        ISBN_LOOKUP("ISBN index lookup"),
+        LOANED_BOOKS("Active loans index"),
+        FULL_SCAN("Full catalog scan");
+
+        private final String description;
+
+        AccessPath(String description) {
+            this.description = description;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+    }
+
+    private final QueryNode query;
+    private final AccessPath accessPath;
+    private final long isbnKey;
+    private final double candidates;
+    private final List<QueryNode> filters;
+    private final double[] filterSelectivities;
+    private final double estimatedRows;
+    private final double cost;
+    private final List<QueryPlan> rejected;
+
+    QueryPlan(QueryNode query, AccessPath accessPath, long isbnKey, double candidates, List<QueryNode> filters,
+              double[] filterSelectivities, double estimatedRows, double cost, List<QueryPlan> rejected) {
+        this.query = query;
+        this.accessPath = accessPath;
+        this.isbnKey = isbnKey;
+        this.candidates = candidates;
+        this.filters = filters;
+        this.filterSelectivities = filterSelectivities;
+        this.estimatedRows = estimatedRows;
+        this.cost = cost;
+        this.rejected = rejected;
+    }
+
+    public AccessPath getAccessPath() {
+        return accessPath;
+    }
+
+    /**
+     * Get the packed ISBN looked up by an ISBN_LOOKUP plan
+     */
+    public long getIsbnKey() {
+        return isbnKey;
+    }
+
+    public double getCost() {
+        return cost;
+    }
+
+    /**
+     * Copy this plan, recording the alternatives it was chosen over
+     */
+    QueryPlan withRejected(List<QueryPlan> alternatives) {
+        return new QueryPlan(query, accessPath, isbnKey, candidates, filters, filterSelectivities,
+                estimatedRows, cost, List.copyOf(alternatives));
+    }
+
+    /**
+     * Check whether a candidate book passes every filter
+     */
+    public boolean matches(BookRecord book, LongIntHashMap loaned) {
+        for (QueryNode filter : filters) {
+            if (!filter.test(book, loaned)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Describe the plan, its estimates and the alternatives it beat
+     */
+    public String explain() {
+        StringBuilder text = new StringBuilder();
+        text.append("Query: ").append(query).append('\n');
+        describe(text);
+        for (QueryPlan alternative : rejected) {
+            text.append(String.format("Rejected: %s (cost %.1f)%n",
+                    alternative.accessLine(), alternative.cost));
+        }
+        return text.toString();
+    }
+
+    private void describe(StringBuilder text) {
+        text.append(accessLine()).append('\n');
+        for (int i = 0; i < filters.size(); i++) {
+            text.append(String.format("  Filter: %s (selectivity %.4f, cost %.0f)%n",
+                    filters.get(i), filterSelectivities[i], filters.get(i).cost()));
+        }
+        text.append(String.format("Estimated rows %.1f, cost %.1f%n", estimatedRows, cost));
+    }
+
+    private String accessLine() {
+        String line = accessPath.getDescription();
+        if (accessPath == AccessPath.ISBN_LOOKUP) {
+            line += " on " + isbnKey;
+        }
+        return String.format("%s (%.0f candidate%s)", line, candidates, candidates == 1 ? "" : "s");
+    }
+}
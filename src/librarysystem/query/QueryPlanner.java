@@ -0,0 +1,93 @@
+/**
+ * This class picks the cheapest way to run a query. The top-level AND of
+ * the query is split into conditions; any exact isbn: condition can be
+ * answered with one lookup in the ISBN hash index, and a loaned condition
+ * can start from the active loans instead of the whole catalog. Each
+ * possible access path is costed as the candidates it produces times the
+ * cost of reading and filtering one of them, and the cheapest wins.
+ *
+ * Remaining conditions are ordered so that cheap conditions which reject
+ * many books run first, i.e. by cost / (1 - selectivity). Selectivities
+ * come from CatalogStatistics and assume conditions are independent.
+ */
+package librarysystem.query;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+public class QueryPlanner {
+    // Relative costs: reading one record in a scan, and one hash index probe
+    static final double ROW_COST = 1;
+    static final double LOOKUP_COST = 4;
+
+    /**
+     * Plan a query against the current statistics
+     */
+    public QueryPlan plan(QueryNode query, CatalogStatistics statistics) {
+        List<QueryNode> conditions = new ArrayList<>();
+        flattenAnd(query, conditions);
+        int books = statistics.getBookCount();
+
+        List<QueryPlan> plans = new ArrayList<>();
+        plans.add(build(query, QueryPlan.AccessPath.FULL_SCAN, -1, books, ROW_COST,
+                conditions, -1, statistics));
+        for (int i = 0; i < conditions.size(); i++) {
+            QueryNode condition = conditions.get(i);
+            if (condition instanceof QueryNode.Match match && match.field == QueryNode.Field.ISBN
+                    && match.mode == QueryNode.MatchMode.EQUALS) {
+                plans.add(build(query, QueryPlan.AccessPath.ISBN_LOOKUP, match.isbnKey, Math.min(1, books),
+                        LOOKUP_COST + ROW_COST, conditions, i, statistics));
+            } else if (condition instanceof QueryNode.Loaned loaned && loaned.loaned) {
+                plans.add(build(query, QueryPlan.AccessPath.LOANED_BOOKS, -1, statistics.getLoanedCount(),
+                        LOOKUP_COST + ROW_COST, conditions, i, statistics));
+            }
+        }
+
+        plans.sort(Comparator.comparingDouble(QueryPlan::getCost));
+        return plans.get(0).withRejected(plans.subList(1, plans.size()));
+    }
+
+    /**
+     * Cost an access path; the condition it answers (if any) needs no filter
+     */
+    private QueryPlan build(QueryNode query, QueryPlan.AccessPath path, long isbnKey, double candidates,
+                            double costPerCandidate, List<QueryNode> conditions, int answered,
+                            CatalogStatistics statistics) {
+        List<QueryNode> filters = new ArrayList<>();
+        for (int i = 0; i < conditions.size(); i++) {
+            if (i != answered) {
+                filters.add(conditions.get(i));
+            }
+        }
+        filters.sort(Comparator.comparingDouble(filter -> rank(filter, statistics)));
+
+        double[] selectivities = new double[filters.size()];
+        double passing = 1;
+        double filterCost = 0;
+        for (int i = 0; i < filters.size(); i++) {
+            selectivities[i] = filters.get(i).selectivity(statistics);
+            // A filter only runs on the candidates the earlier ones let through
+            filterCost += passing * filters.get(i).cost();
+            passing *= selectivities[i];
+        }
+
+        return new QueryPlan(query, path, isbnKey, candidates, filters, selectivities,
+                candidates * passing, candidates * (costPerCandidate + filterCost), List.of());
+    }
+
+    private static double rank(QueryNode filter, CatalogStatistics statistics) {
+        double rejects = 1 - filter.selectivity(statistics);
+        return rejects <= 0 ? Double.MAX_VALUE : filter.cost() / rejects;
+    }
+
+    private static void flattenAnd(QueryNode node, List<QueryNode> conditions) {
+        if (node instanceof QueryNode.And and) {
+            for (QueryNode child : and.children) {
+                flattenAnd(child, conditions);
+            }
+        } else {
+            conditions.add(node);
+        }
+    }
+}
@@ -0,0 +1,430 @@
+/**
+ * This class exposes the library operations over TCP so that every desk
+ * client shares one library state. Each connection is served on its own
+ * virtual thread and stays open until the client sends QUIT, so requests
+ * can be pipelined without reconnecting.
+ *
+ * Requests are single lines with fields separated by '|', for example
+ * ISSUE|M001|9780140447934. Every response starts with either "OK n", followed by
+ * n record lines, or "ERR message". A request line longer than
+ * MAX_LINE_LENGTH is answered with an error and the connection is closed.
+ */
+package librarysystem.server;
+
+import librarysystem.controllers.LibraryController;
+import librarysystem.fines.Fine;
+import librarysystem.fines.FineReport;
+import librarysystem.models.Book;
+import librarysystem.models.BookLoan;
+import librarysystem.models.Member;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class LibraryServer implements Closeable {
+    // Large accept queue so bursts of desk clients are not refused
+    private static final int ACCEPT_BACKLOG = 4096;
+    private static final int BUFFER_SIZE = 16 * 1024;
+    // Longest request line accepted, so one client cannot fill the heap
+    private static final int MAX_LINE_LENGTH = 8 * 1024;
+    // Most rows a ranked request may ask for; larger limits are cut down to this
+    private static final int MAX_LIMIT = 1000;
+
+    private final LibraryController controller;
+    private final ServerSocket serverSocket;
+    private final ExecutorService connections;
+    private volatile boolean running;
+
+    public LibraryServer(LibraryController controller, int port) throws IOException {
+        this.controller = controller;
+        this.serverSocket = new ServerSocket();
+        this.serverSocket.setReuseAddress(true);
+        this.serverSocket.bind(new InetSocketAddress(port), ACCEPT_BACKLOG);
+        this.connections = Executors.newVirtualThreadPerTaskExecutor();
+        this.running = true;
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Accept connections until the server is closed
+     */
+    public void serve() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                connections.submit(() -> handleConnection(socket));
+            } catch (IOException e) {
+                if (running) {
+                    System.err.println("Failed to accept connection: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Accept connections on a background thread
+     */
+    public void start() {
+        Thread.ofPlatform().name("library-server-accept").daemon().start(this::serve);
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        serverSocket.close();
+        connections.shutdownNow();
+    }
+
+    /**
+     * Serve one client until it sends QUIT or disconnects
+     */
+    private void handleConnection(Socket socket) {
+        try (socket;
+             Reader input = new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8);
+             Writer out = new BufferedWriter(
+                     new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8), BUFFER_SIZE)) {
+            socket.setTcpNoDelay(true);
+
+            LineReader in = new LineReader(input);
+            StringBuilder response = new StringBuilder();
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.equalsIgnoreCase("QUIT")) {
+                    break;
+                }
+
+                response.setLength(0);
+                execute(line, response);
+                out.write(response.toString());
+
+                // Only flush once all pipelined requests already received have been answered
+                if (!in.ready()) {
+                    out.flush();
+                }
+            }
+            if (in.isOverflowed()) {
+                out.write("ERR Request line longer than " + MAX_LINE_LENGTH + " characters\n");
+            }
+            out.flush();
+        } catch (IOException e) {
+            // Client went away; nothing left to answer
+        } catch (Error e) {
+            // Submitted tasks swallow what they throw, so report it before the thread ends
+            System.err.println("Connection failed: " + e);
+            throw e;
+        }
+    }
+
+    /**
+     * Run a single request line and append its response
+     */
+    void execute(String line, StringBuilder response) {
+        String[] fields = line.split("\\|", -1);
+        try {
+            switch (fields[0].trim().toUpperCase()) {
+                case "PING":
+                    ok(response, Collections.emptyList());
+                    break;
+                case "ADDBOOK":
+                    requireFields(fields, 6);
+                    controller.addBook(new Book(fields[1], fields[2], fields[3], fields[4],
+                            Integer.parseInt(fields[5].trim())));
+                    ok(response, Collections.emptyList());
+                    break;
+                case "REMOVEBOOK":
+                    requireFields(fields, 2);
+                    ok(response, List.of(bookRow(controller.removeBook(fields[1]))));
+                    break;
+                case "LISTBOOKS":
+                    ok(response, bookRows(controller.getAllBooks()));
+                    break;
+                case "BOOK":
+                    requireFields(fields, 2);
+                    Book book = controller.getBook(fields[1]);
+                    if (book == null) {
+                        throw new IllegalArgumentException("Book not found!");
+                    }
+                    ok(response, List.of(bookRow(book)));
+                    break;
+                case "ADDMEMBER":
+                    requireFields(fields, 5);
+                    controller.addMember(new Member(fields[1], fields[2], fields[3], fields[4]));
+                    ok(response, Collections.emptyList());
+                    break;
+                case "REMOVEMEMBER":
+                    requireFields(fields, 2);
+                    ok(response, List.of(memberRow(controller.removeMember(fields[1]))));
+                    break;
+                case "LISTMEMBERS":
+                    ok(response, memberRows(controller.getAllMembers()));
+                    break;
+                case "MEMBER":
+                    requireFields(fields, 2);
+                    Member member = controller.getMember(fields[1]);
+                    if (member == null) {
+                        throw new IllegalArgumentException("Member not found!");
+                    }
+                    ok(response, List.of(memberRow(member)));
+                    break;
+                case "FINDMEMBER":
+                    requireFields(fields, 3);
+                    ok(response, memberRows(findMembers(fields[1], fields[2])));
+                    break;
+                case "MEMBERLOANS":
+                    requireFields(fields, 2);
+                    ok(response, loanRows(controller.getActiveLoans(fields[1])));
+                    break;
+                case "HISTORY":
+                    requireFields(fields, 4);
+                    ok(response, loanRows(controller.getLoanHistory(fields[1], date(fields[2]), date(fields[3]))));
+                    break;
+                case "LOANLIMIT":
+                    requireFields(fields, 3);
+                    if (fields[2].isBlank()) {
+                        controller.clearLoanLimit(fields[1]);
+                    } else {
+                        controller.setLoanLimit(fields[1], Integer.parseInt(fields[2].trim()));
+                    }
+                    ok(response, Collections.emptyList());
+                    break;
+                case "ISSUE":
+                    requireFields(fields, 3);
+                    ok(response, List.of(loanRow(controller.issueBook(fields[1], fields[2]))));
+                    break;
+                case "RETURN":
+                    requireFields(fields, 2);
+                    ok(response, List.of(loanRow(controller.returnBook(fields[1]))));
+                    break;
+                case "LISTLOANS":
+                    ok(response, loanRows(controller.getActiveLoans()));
+                    break;
+                case "FINES":
+                    requireFields(fields, 2);
+                    FineReport report = controller.assessFines(LocalDate.now());
+                    ok(response, fineRows(controller.getLargestFines(report, limit(fields[1]))));
+                    break;
+                case "SEARCHTITLE":
+                    requireFields(fields, 2);
+                    ok(response, bookRows(controller.searchBooksByTitle(fields[1])));
+                    break;
+                case "SEARCHAUTHOR":
+                    requireFields(fields, 2);
+                    ok(response, bookRows(controller.searchBooksByAuthor(fields[1])));
+                    break;
+                case "QUERY":
+                    requireFields(fields, 2);
+                    ok(response, bookRows(controller.query(fields[1])));
+                    break;
+                case "EXPLAIN":
+                    requireFields(fields, 2);
+                    ok(response, controller.explainQuery(fields[1]).lines().toList());
+                    break;
+                case "RECOMMEND":
+                    requireFields(fields, 3);
+                    ok(response, bookRows(controller.recommendBooks(fields[1], limit(fields[2]))));
+                    break;
+                case "SUGGEST":
+                    requireFields(fields, 4);
+                    ok(response, suggest(fields[1], fields[2], limit(fields[3])));
+                    break;
+                default:
+                    error(response, "Unknown command: " + fields[0]);
+            }
+        } catch (NumberFormatException e) {
+            error(response, "Please enter a valid number.");
+        } catch (DateTimeParseException e) {
+            error(response, "Please enter dates as YYYY-MM-DD.");
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            error(response, e.getMessage() == null ? "Invalid request" : e.getMessage());
+        } catch (RuntimeException e) {
+            System.err.println("Request failed: " + fields[0] + ": " + e);
+            error(response, "Request failed");
+        }
+    }
+
+    private List<Member> findMembers(String field, String value) {
+        switch (field.trim().toLowerCase()) {
+            case "email":
+                Member member = controller.findMemberByEmail(value);
+                return member == null ? Collections.emptyList() : List.of(member);
+            case "phone":
+                return controller.findMembersByPhone(value);
+            case "name":
+                return controller.findMembersByName(value);
+            default:
+                throw new IllegalArgumentException("FINDMEMBER field must be email, phone or name");
+        }
+    }
+
+    private List<String> suggest(String field, String prefix, int limit) {
+        switch (field.trim().toLowerCase()) {
+            case "title":
+                return controller.suggestTitles(prefix, limit);
+            case "author":
+                return controller.suggestAuthors(prefix, limit);
+            case "member":
+                return controller.suggestMemberNames(prefix, limit);
+            default:
+                throw new IllegalArgumentException("SUGGEST field must be title, author or member");
+        }
+    }
+
+    /**
+     * Parse the row limit of a ranked request, capped at MAX_LIMIT
+     */
+    private int limit(String field) {
+        int limit = Integer.parseInt(field.trim());
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be at least 1!");
+        }
+        return Math.min(limit, MAX_LIMIT);
+    }
+
+    /**
+     * Parse an optional ISO date; blank leaves that end of a range open
+     */
+    private LocalDate date(String field) {
+        return field.isBlank() ? null : LocalDate.parse(field.trim());
+    }
+
+    private void requireFields(String[] fields, int count) {
+        if (fields.length < count) {
+            throw new IllegalArgumentException(fields[0] + " expects " + (count - 1) + " field(s)");
+        }
+    }
+
+    private void ok(StringBuilder response, List<String> rows) {
+        response.append("OK ").append(rows.size()).append('\n');
+        for (String row : rows) {
+            response.append(row).append('\n');
+        }
+    }
+
+    private void error(StringBuilder response, String message) {
+        response.append("ERR ").append(clean(message)).append('\n');
+    }
+
+    private List<String> bookRows(List<Book> books) {
+        return books.stream().map(this::bookRow).toList();
+    }
+
+    private List<String> memberRows(List<Member> members) {
+        return members.stream().map(this::memberRow).toList();
+    }
+
+    private List<String> loanRows(List<BookLoan> loans) {
+        return loans.stream().map(this::loanRow).toList();
+    }
+
+    private List<String> fineRows(List<Fine> fines) {
+        return fines.stream()
+                .map(fine -> loanRow(fine.getLoan()) + "|" + fine.getOverdueDays() + "|" + fine.getCents())
+                .toList();
+    }
+
+    private String bookRow(Book book) {
+        return String.join("|", clean(book.getIsbn()), clean(book.getTitle()), clean(book.getAuthor()),
+                clean(book.getCategory()), String.valueOf(book.getPublicationYear()));
+    }
+
+    private String memberRow(Member member) {
+        return String.join("|", clean(member.getId()), clean(member.getName()),
+                clean(member.getEmail()), clean(member.getPhone()));
+    }
+
+    private String loanRow(BookLoan loan) {
+        return String.join("|", clean(loan.getBook().getIsbn()), clean(loan.getBook().getTitle()),
+                clean(loan.getMember().getId()), clean(loan.getMember().getName()),
+                String.valueOf(loan.getIssueDate()),
+                loan.getReturnDate() == null ? "" : String.valueOf(loan.getReturnDate()));
+    }
+
+    /**
+     * Keep field values from breaking the line and field framing
+     */
+    private String clean(String value) {
+        if (value == null) {
+            return "";
+        }
+        return value.replace('|', '/').replace('\n', ' ').replace('\r', ' ');
+    }
+
+    /**
+     * Reads request lines from a client, refusing any line longer than
+     * MAX_LINE_LENGTH instead of buffering it whole
+     */
+    private static final class LineReader {
+        private final Reader in;
+        private final char[] buffer = new char[BUFFER_SIZE];
+        private final StringBuilder line = new StringBuilder();
+        private int position;
+        private int limit;
+        private boolean overflowed;
+
+        LineReader(Reader in) {
+            this.in = in;
+        }
+
+        /**
+         * Get the next line without its terminator, or null at the end of
+         * the input or once a line is too long
+         */
+        String readLine() throws IOException {
+            if (overflowed) {
+                return null;
+            }
+            line.setLength(0);
+            while (true) {
+                if (position == limit) {
+                    int read = in.read(buffer, 0, buffer.length);
+                    if (read <= 0) {
+                        return line.length() > 0 ? line.toString() : null;
+                    }
+                    position = 0;
+                    limit = read;
+                }
+
+                int start = position;
+                while (position < limit && buffer[position] != '\n') {
+                    position++;
+                }
+                line.append(buffer, start, position - start);
+                if (line.length() > MAX_LINE_LENGTH) {
+                    overflowed = true;
+                    return null;
+                }
+                if (position < limit) {
+                    position++;
+                    int end = line.length();
+                    if (end > 0 && line.charAt(end - 1) == '\r') {
+                        line.setLength(end - 1);
+                    }
+                    return line.toString();
+                }
+            }
+        }
+
+        /**
+         * Tell whether another line can be read without blocking
+         */
+        boolean ready() throws IOException {
+            return position < limit || in.ready();
+        }
+
+        boolean isOverflowed() {
+            return overflowed;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+/**
+ * This class is a local load client for the library server. It opens many
+ * concurrent connections, each on its own virtual thread, pipelines batches
+ * of requests over them and reports throughput and round-trip latency.
+ *
+ * Most requests are reads. A share of them, writePercent, are replaced by an
+ * ISSUE and RETURN pair. Each client first adds a book with its own ISBN and
+ * only ever lends that one, so clients never contend for the same copy. The
+ * book is left in place; its loans keep it in the server's history anyway,
+ * and the next run lends the same book again.
+ *
+ * Usage: LoadClient [host] [port] [clients] [batchesPerClient] [pipelineDepth] [writePercent]
+ */
+package librarysystem.server;
+
+import java.io.*;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class LoadClient {
+    private static final String[] REQUESTS = {
+            "PING",
+            "BOOK|9780141439815",
+            "MEMBER|M001",
+            "SEARCHTITLE|war",
+            "SEARCHAUTHOR|tolstoy",
+            "MEMBERLOANS|M002"
+    };
+
+    public static void main(String[] args) throws Exception {
+        String host = args.length > 0 ? args[0] : "localhost";
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 7070;
+        int clients = args.length > 2 ? Integer.parseInt(args[2]) : 2000;
+        int batches = args.length > 3 ? Integer.parseInt(args[3]) : 50;
+        int depth = args.length > 4 ? Integer.parseInt(args[4]) : 8;
+        int writePercent = args.length > 5 ? Integer.parseInt(args[5]) : 20;
+
+        AtomicLong responses = new AtomicLong();
+        AtomicLong rejected = new AtomicLong();
+        AtomicLong errors = new AtomicLong();
+        long[][] batchLatencies = new long[clients][];
+
+        System.out.printf("Connecting %d clients to %s:%d (%d batches x %d pipelined requests, %d%% writes)%n",
+                clients, host, port, batches, depth, writePercent);
+
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < clients; c++) {
+                int client = c;
+                executor.submit(() -> {
+                    try {
+                        batchLatencies[client] = runClient(host, port, client, batches, depth, writePercent,
+                                responses, rejected);
+                    } catch (IOException e) {
+                        errors.incrementAndGet();
+                    }
+                });
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+
+        long[] latencies = Arrays.stream(batchLatencies)
+                .filter(l -> l != null)
+                .flatMapToLong(Arrays::stream)
+                .sorted()
+                .toArray();
+
+        System.out.printf("Responses: %d in %.2f s (%.0f req/s), rejected: %d, failed clients: %d%n",
+                responses.get(), elapsed / 1e9, responses.get() / (elapsed / 1e9), rejected.get(), errors.get());
+        if (latencies.length > 0) {
+            System.out.printf("Batch round trip: p50=%.2f ms p99=%.2f ms max=%.2f ms%n",
+                    percentile(latencies, 0.50) / 1e6,
+                    percentile(latencies, 0.99) / 1e6,
+                    latencies[latencies.length - 1] / 1e6);
+        }
+    }
+
+    /**
+     * Send pipelined batches over one kept-alive connection
+     */
+    private static long[] runClient(String host, int port, int client, int batches, int depth, int writePercent,
+                                    AtomicLong responses, AtomicLong rejected) throws IOException {
+        long[] latencies = new long[batches];
+        SplittableRandom random = new SplittableRandom(client);
+        String isbn = isbn(client);
+        String memberId = "M00" + (client % 3 + 1);
+        try (Socket socket = new Socket(host, port);
+             BufferedReader in = new BufferedReader(
+                     new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             Writer out = new BufferedWriter(
+                     new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))) {
+            socket.setTcpNoDelay(true);
+
+            if (writePercent > 0) {
+                // Left by an earlier run, the book is already there; that is fine
+                out.write("ADDBOOK|" + isbn + "|Load Test " + client + "|Load Client|Test|2024\n");
+                out.flush();
+                readResponse(in);
+            }
+
+            for (int b = 0; b < batches; b++) {
+                long sent = System.nanoTime();
+                for (int r = 0; r < depth; r++) {
+                    // A pair takes two slots so the book is back before the batch ends
+                    if (r + 1 < depth && random.nextInt(100) < writePercent) {
+                        out.write("ISSUE|" + memberId + "|" + isbn + "\nRETURN|" + isbn);
+                        r++;
+                    } else {
+                        out.write(REQUESTS[(client + b + r) % REQUESTS.length]);
+                    }
+                    out.write('\n');
+                }
+                out.flush();
+
+                for (int r = 0; r < depth; r++) {
+                    if (!readResponse(in)) {
+                        rejected.incrementAndGet();
+                    }
+                    responses.incrementAndGet();
+                }
+                latencies[b] = System.nanoTime() - sent;
+            }
+
+            out.write("QUIT\n");
+            out.flush();
+        }
+        return latencies;
+    }
+
+    /**
+     * Consume one "OK n" or "ERR" response including its record lines, and
+     * tell whether it was OK
+     */
+    private static boolean readResponse(BufferedReader in) throws IOException {
+        String status = in.readLine();
+        if (status == null) {
+            throw new EOFException("Server closed the connection");
+        }
+        if (status.startsWith("OK ")) {
+            int rows = Integer.parseInt(status.substring(3).trim());
+            for (int i = 0; i < rows; i++) {
+                in.readLine();
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Get a valid ISBN-13 that belongs to the given client alone
+     */
+    private static String isbn(int client) {
+        String body = "979" + String.format("%09d", client);
+        int sum = 0;
+        for (int i = 0; i < 12; i++) {
+            sum += (body.charAt(i) - '0') * (i % 2 == 0 ? 1 : 3);
+        }
+        return body + (10 - sum % 10) % 10;
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+}
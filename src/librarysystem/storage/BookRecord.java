@@ -0,0 +1,90 @@
+/**
+ * This class is a flyweight view of a book stored off-heap. It is moved
+ * from record to record during a scan, so its values must be read, or
+ * copied out with toBook, before the scan moves on.
+ */
+package librarysystem.storage;
+
+import librarysystem.models.Book;
+
+import java.lang.foreign.MemorySegment;
+
+public class BookRecord {
+    static final int ISBN = 0;
+    static final int TITLE = 1;
+    static final int AUTHOR = 2;
+    static final int CATEGORY = 3;
+    static final int FIELD_COUNT = 4;
+
+    private final RecordStore store;
+    private final MemorySegment[] slabs;
+    private long address;
+    private byte[] scratch = new byte[256];
+
+    BookRecord(RecordStore store, MemorySegment[] slabs) {
+        this.store = store;
+        this.slabs = slabs;
+    }
+
+    BookRecord moveTo(long address) {
+        this.address = address;
+        return this;
+    }
+
+    public String getIsbn() {
+        return store.field(slabs, address, ISBN);
+    }
+
+    /**
+     * Get the packed ISBN without decoding any text
+     */
+    public long getIsbnKey() {
+        return store.key(slabs, address);
+    }
+
+    public String getTitle() {
+        return store.field(slabs, address, TITLE);
+    }
+
+    public String getAuthor() {
+        return store.field(slabs, address, AUTHOR);
+    }
+
+    public String getCategory() {
+        return store.field(slabs, address, CATEGORY);
+    }
+
+    public int getPublicationYear() {
+        return store.extra(slabs, address);
+    }
+
+    /**
+     * Check whether the title contains the text, ignoring case
+     */
+    public boolean titleContains(String text) {
+        return fieldContains(TITLE, text);
+    }
+
+    /**
+     * Check whether the author contains the text, ignoring case
+     */
+    public boolean authorContains(String text) {
+        return fieldContains(AUTHOR, text);
+    }
+
+    /**
+     * Copy the record into an ordinary Book object
+     */
+    public Book toBook() {
+        return new Book(getIsbn(), getTitle(), getAuthor(), getCategory(), getPublicationYear());
+    }
+
+    private boolean fieldContains(int field, String text) {
+        if (!SearchText.isAscii(text)) {
+            return store.field(slabs, address, field).toLowerCase().contains(text.toLowerCase());
+        }
+        // ASCII text can be matched on the stored bytes without decoding them
+        scratch = store.fieldBytes(slabs, address, field, scratch);
+        return SearchText.containsIgnoreAsciiCase(scratch, store.fieldLength(slabs, address, field), text);
+    }
+}
@@ -0,0 +1,122 @@
+/**
+ * This class is a consistent, point-in-time view of the catalog and the
+ * loan history. Taking one costs a few field reads and takes no lock, and
+ * scanning it never blocks, or is blocked by, books being issued, returned,
+ * added or removed meanwhile: every record and loan is shown exactly as it
+ * was at the snapshot's version.
+ *
+ * Nothing is copied when a snapshot is taken. Catalog records carry
+ * version stamps, and loans live in an append-only log, so the snapshot
+ * only remembers how far each had been filled. While it is reachable, the
+ * catalog does not reuse the space of records it can still see.
+ */
+package librarysystem.storage;
+
+import java.lang.ref.Reference;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+public final class LibrarySnapshot {
+    private final long version;
+    private final RecordStore books;
+    private final RecordStore.Watermark bookMark;
+    private final RecordStore members;
+    private final RecordStore.Watermark memberMark;
+    private final int loanCount;
+    private final long[][] bookAddresses;
+    private final long[][] memberAddresses;
+    private final int[][] issueDays;
+    private final int[][] returnDays;
+    private final long[][] issuedVersions;
+    private final long[][] returnedVersions;
+
+    /**
+     * Capture the state as of the current version, which must only ever
+     * name changes that have been fully applied
+     */
+    public LibrarySnapshot(LongSupplier currentVersion, OffHeapCatalog catalog, LoanLog loanLog) {
+        // Register before reading the version so no record this snapshot can see is reused
+        SnapshotRegistry.Entry registration = catalog.snapshots().register(this);
+        this.version = currentVersion.getAsLong();
+        registration.setVersion(version);
+        this.books = catalog.books();
+        this.bookMark = books.watermark();
+        this.members = catalog.members();
+        this.memberMark = members.watermark();
+        // Read the published count before the chunk arrays, which only ever grow
+        this.loanCount = loanLog.published();
+        this.bookAddresses = loanLog.bookAddressChunks();
+        this.memberAddresses = loanLog.memberAddressChunks();
+        this.issueDays = loanLog.issueDayChunks();
+        this.returnDays = loanLog.returnDayChunks();
+        this.issuedVersions = loanLog.issuedChunks();
+        this.returnedVersions = loanLog.returnedChunks();
+    }
+
+    /**
+     * Visit every book as of this snapshot through a flyweight that is only
+     * valid during the call
+     */
+    public void forEachBook(Consumer<BookRecord> action) {
+        BookRecord record = new BookRecord(books, bookMark.slabs);
+        try {
+            books.forEach(bookMark, version, address -> action.accept(record.moveTo(address)));
+        } finally {
+            // Keep the registration alive until the scan is done
+            Reference.reachabilityFence(this);
+        }
+    }
+
+    /**
+     * Visit the books at the given record addresses that existed as of this
+     * snapshot, in the order given
+     */
+    public void forEachBook(long[] addresses, Consumer<BookRecord> action) {
+        BookRecord record = new BookRecord(books, bookMark.slabs);
+        try {
+            for (long address : addresses) {
+                if (books.existsAt(bookMark.slabs, address, version)) {
+                    action.accept(record.moveTo(address));
+                }
+            }
+        } finally {
+            Reference.reachabilityFence(this);
+        }
+    }
+
+    /**
+     * Visit every member as of this snapshot through a flyweight that is
+     * only valid during the call
+     */
+    public void forEachMember(Consumer<MemberRecord> action) {
+        MemberRecord record = new MemberRecord(members, memberMark.slabs);
+        try {
+            members.forEach(memberMark, version, address -> action.accept(record.moveTo(address)));
+        } finally {
+            Reference.reachabilityFence(this);
+        }
+    }
+
+    /**
+     * Visit every loan issued up to this snapshot, oldest first, through a
+     * flyweight that is only valid during the call. Return dates are as of
+     * the snapshot, so later returns do not show through.
+     */
+    public void forEachLoan(Consumer<LoanRecord> action) {
+        LoanRecord record = new LoanRecord(new BookRecord(books, bookMark.slabs),
+                new MemberRecord(members, memberMark.slabs));
+        for (int position = 0; position < loanCount; position++) {
+            int chunk = position >>> LoanLog.CHUNK_BITS;
+            int slot = position & LoanLog.CHUNK_MASK;
+            if (issuedVersions[chunk][slot] > version) {
+                break;
+            }
+
+            // The acquire read makes the return day written before the stamp visible
+            long returned = (long) LoanLog.STAMPS.getAcquire(returnedVersions[chunk], slot);
+            int returnDay = returned != 0 && returned <= version ? returnDays[chunk][slot] : LoanLog.NOT_RETURNED;
+            action.accept(record.moveTo(bookAddresses[chunk][slot], memberAddresses[chunk][slot],
+                    issueDays[chunk][slot], returnDay));
+        }
+    }
+}
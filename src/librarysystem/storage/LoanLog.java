@@ -0,0 +1,155 @@
+/**
+ * This class is the append-only history of every loan. Alongside each loan
+ * it records the library version at which it was issued and, once the book
+ * comes back, the version at which it was returned, so a LibrarySnapshot
+ * can tell what the loan looked like at any earlier version.
+ *
+ * A loan is stored as the off-heap addresses of its book and member
+ * records plus its issue and return days, all in primitive columns, so the
+ * history costs a few dozen bytes per loan however long it grows. BookLoan
+ * objects are only built when a loan is read.
+ *
+ * Loans are kept in fixed-size chunks that are never moved, so appending
+ * never copies existing entries. Appends and returns must come from one
+ * thread at a time; snapshots may read from any thread.
+ */
+package librarysystem.storage;
+
+import librarysystem.models.BookLoan;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+public class LoanLog {
+    static final int CHUNK_BITS = 14;
+    static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    // Return day of a loan whose book is still out
+    static final int NOT_RETURNED = Integer.MIN_VALUE;
+
+    // Return stamps are written by the writer while snapshots read them
+    static final VarHandle STAMPS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final RecordStore books;
+    private final RecordStore members;
+    private long[][] bookAddresses = new long[16][];
+    private long[][] memberAddresses = new long[16][];
+    private int[][] issueDays = new int[16][];
+    private int[][] returnDays = new int[16][];
+    private long[][] issuedVersions = new long[16][];
+    private long[][] returnedVersions = new long[16][];
+    private int size;
+    // Number of loans snapshots may read; written after each append
+    private volatile int published;
+
+    public LoanLog(OffHeapCatalog catalog) {
+        this.books = catalog.books();
+        this.members = catalog.members();
+    }
+
+    /**
+     * Append a loan of the book and member at the given record addresses,
+     * issued at the given version, and return its position. Both records
+     * are pinned so their space is never reused.
+     */
+    public int append(long bookAddress, long memberAddress, LocalDate issueDate, long version) {
+        books.pin(bookAddress);
+        members.pin(memberAddress);
+        int chunk = size >>> CHUNK_BITS;
+        if (chunk == bookAddresses.length) {
+            bookAddresses = Arrays.copyOf(bookAddresses, chunk * 2);
+            memberAddresses = Arrays.copyOf(memberAddresses, chunk * 2);
+            issueDays = Arrays.copyOf(issueDays, chunk * 2);
+            returnDays = Arrays.copyOf(returnDays, chunk * 2);
+            issuedVersions = Arrays.copyOf(issuedVersions, chunk * 2);
+            returnedVersions = Arrays.copyOf(returnedVersions, chunk * 2);
+        }
+        if (bookAddresses[chunk] == null) {
+            bookAddresses[chunk] = new long[CHUNK_SIZE];
+            memberAddresses[chunk] = new long[CHUNK_SIZE];
+            issueDays[chunk] = new int[CHUNK_SIZE];
+            returnDays[chunk] = new int[CHUNK_SIZE];
+            issuedVersions[chunk] = new long[CHUNK_SIZE];
+            returnedVersions[chunk] = new long[CHUNK_SIZE];
+        }
+
+        int slot = size & CHUNK_MASK;
+        bookAddresses[chunk][slot] = bookAddress;
+        memberAddresses[chunk][slot] = memberAddress;
+        issueDays[chunk][slot] = (int) issueDate.toEpochDay();
+        returnDays[chunk][slot] = NOT_RETURNED;
+        issuedVersions[chunk][slot] = version;
+        int position = size++;
+        published = size;
+        return position;
+    }
+
+    /**
+     * Close the loan at the given position as of the given date and version
+     */
+    public BookLoan markReturned(int position, LocalDate returnDate, long version) {
+        int chunk = position >>> CHUNK_BITS;
+        int slot = position & CHUNK_MASK;
+        // The return day must be in place before snapshots can see the stamp
+        returnDays[chunk][slot] = (int) returnDate.toEpochDay();
+        STAMPS.setRelease(returnedVersions[chunk], slot, version);
+        return get(position);
+    }
+
+    /**
+     * Build a copy of the loan at the given position
+     */
+    public BookLoan get(int position) {
+        int chunk = position >>> CHUNK_BITS;
+        int slot = position & CHUNK_MASK;
+        LoanRecord record = new LoanRecord(new BookRecord(books, books.currentSlabs()),
+                new MemberRecord(members, members.currentSlabs()));
+        return record.moveTo(bookAddresses[chunk][slot], memberAddresses[chunk][slot],
+                issueDays[chunk][slot], returnDays[chunk][slot]).toLoan();
+    }
+
+    /**
+     * Get the packed ISBN of the book lent at the given position
+     */
+    public long getIsbnKey(int position) {
+        return books.key(books.currentSlabs(), bookAddresses[position >>> CHUNK_BITS][position & CHUNK_MASK]);
+    }
+
+    public boolean isReturned(int position) {
+        return returnDays[position >>> CHUNK_BITS][position & CHUNK_MASK] != NOT_RETURNED;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    int published() {
+        return published;
+    }
+
+    long[][] bookAddressChunks() {
+        return bookAddresses;
+    }
+
+    long[][] memberAddressChunks() {
+        return memberAddresses;
+    }
+
+    int[][] issueDayChunks() {
+        return issueDays;
+    }
+
+    int[][] returnDayChunks() {
+        return returnDays;
+    }
+
+    long[][] issuedChunks() {
+        return issuedVersions;
+    }
+
+    long[][] returnedChunks() {
+        return returnedVersions;
+    }
+}
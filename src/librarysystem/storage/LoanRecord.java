@@ -0,0 +1,68 @@
+/**
+ * This class is a reusable view of one entry in the loan log. The loan
+ * itself only holds the addresses of its book and member records and its
+ * issue and return days, so the book and member fields are read from the
+ * catalog when asked for. Nothing is copied onto the heap until toLoan.
+ */
+package librarysystem.storage;
+
+import librarysystem.models.BookLoan;
+
+import java.time.LocalDate;
+
+public class LoanRecord {
+    private final BookRecord book;
+    private final MemberRecord member;
+    private int issueDay;
+    private int returnDay;
+
+    LoanRecord(BookRecord book, MemberRecord member) {
+        this.book = book;
+        this.member = member;
+    }
+
+    LoanRecord moveTo(long bookAddress, long memberAddress, int issueDay, int returnDay) {
+        book.moveTo(bookAddress);
+        member.moveTo(memberAddress);
+        this.issueDay = issueDay;
+        this.returnDay = returnDay;
+        return this;
+    }
+
+    public String getIsbn() {
+        return book.getIsbn();
+    }
+
+    public String getTitle() {
+        return book.getTitle();
+    }
+
+    public String getMemberId() {
+        return member.getId();
+    }
+
+    public String getMemberName() {
+        return member.getName();
+    }
+
+    public LocalDate getIssueDate() {
+        return LocalDate.ofEpochDay(issueDay);
+    }
+
+    /**
+     * Get the return date, or null while the book is still out
+     */
+    public LocalDate getReturnDate() {
+        return returnDay == LoanLog.NOT_RETURNED ? null : LocalDate.ofEpochDay(returnDay);
+    }
+
+    public boolean isActive() {
+        return returnDay == LoanLog.NOT_RETURNED;
+    }
+
+    public BookLoan toLoan() {
+        BookLoan loan = new BookLoan(book.toBook(), member.toMember(), getIssueDate());
+        loan.setReturnDate(getReturnDate());
+        return loan;
+    }
+}
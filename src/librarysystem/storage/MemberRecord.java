@@ -0,0 +1,55 @@
+/**
+ * This class is a flyweight view of a member stored off-heap. It is moved
+ * from record to record during a scan, so its values must be read, or
+ * copied out with toMember, before the scan moves on.
+ */
+package librarysystem.storage;
+
+import librarysystem.models.Member;
+
+import java.lang.foreign.MemorySegment;
+
+public class MemberRecord {
+    static final int ID = 0;
+    static final int NAME = 1;
+    static final int EMAIL = 2;
+    static final int PHONE = 3;
+    static final int FIELD_COUNT = 4;
+
+    private final RecordStore store;
+    private final MemorySegment[] slabs;
+    private long address;
+
+    MemberRecord(RecordStore store, MemorySegment[] slabs) {
+        this.store = store;
+        this.slabs = slabs;
+    }
+
+    MemberRecord moveTo(long address) {
+        this.address = address;
+        return this;
+    }
+
+    public String getId() {
+        return store.field(slabs, address, ID);
+    }
+
+    public String getName() {
+        return store.field(slabs, address, NAME);
+    }
+
+    public String getEmail() {
+        return store.field(slabs, address, EMAIL);
+    }
+
+    public String getPhone() {
+        return store.field(slabs, address, PHONE);
+    }
+
+    /**
+     * Copy the record into an ordinary Member object
+     */
+    public Member toMember() {
+        return new Member(getId(), getName(), getEmail(), getPhone());
+    }
+}
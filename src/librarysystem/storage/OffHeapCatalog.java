@@ -0,0 +1,133 @@
+/**
+ * This class holds the book and member records of the library outside the
+ * Java heap, each store with its own off-heap hash index (books by ISBN,
+ * members by ID). Lookups return ordinary model objects, while scans go
+ * through a LibrarySnapshot and hand out a single reused flyweight, so
+ * even a full pass over tens of millions of books leaves only short-lived
+ * garbage behind.
+ *
+ * Every change is stamped with the library version it belongs to. Changes
+ * and lookups must come from one thread at a time (the controller holds
+ * its lock); snapshots may be scanned from any thread.
+ */
+package librarysystem.storage;
+
+import librarysystem.models.Book;
+import librarysystem.models.Member;
+
+import java.util.Arrays;
+
+public class OffHeapCatalog {
+    // Books are keyed on the packed ISBN, members on their ID
+    private final SnapshotRegistry snapshots = new SnapshotRegistry();
+    private final RecordStore books = new RecordStore(BookRecord.FIELD_COUNT, true, snapshots);
+    private final RecordStore members = new RecordStore(MemberRecord.FIELD_COUNT, false, snapshots);
+
+    /**
+     * Store a book, returning false if its ISBN is already present
+     */
+    public boolean addBook(Book book, long version) {
+        String[] fields = new String[BookRecord.FIELD_COUNT];
+        fields[BookRecord.ISBN] = book.getIsbn();
+        fields[BookRecord.TITLE] = book.getTitle();
+        fields[BookRecord.AUTHOR] = book.getAuthor();
+        fields[BookRecord.CATEGORY] = book.getCategory();
+        return books.insert(book.getIsbnKey(), fields, book.getPublicationYear(), version) >= 0;
+    }
+
+    /**
+     * Get a copy of the book with this packed ISBN, or null
+     */
+    public Book getBook(long isbnKey) {
+        long address = books.find(isbnKey);
+        return address < 0 ? null : new BookRecord(books, books.currentSlabs()).moveTo(address).toBook();
+    }
+
+    /**
+     * Get the record addresses of the books with these packed ISBNs,
+     * skipping any that are not in the catalog. The addresses can be
+     * visited through a snapshot taken before the next change.
+     */
+    public long[] findBookAddresses(long[] isbnKeys) {
+        long[] addresses = new long[isbnKeys.length];
+        int found = 0;
+        for (long isbnKey : isbnKeys) {
+            long address = books.find(isbnKey);
+            if (address >= 0) {
+                addresses[found++] = address;
+            }
+        }
+        return found == addresses.length ? addresses : Arrays.copyOf(addresses, found);
+    }
+
+    /**
+     * Get the record address of the book with this packed ISBN, or -1.
+     * Once the loan log pins it, the address stays readable for as long as
+     * the catalog lives, even after the book is removed.
+     */
+    public long findBookAddress(long isbnKey) {
+        return books.find(isbnKey);
+    }
+
+    public boolean removeBook(long isbnKey, long version) {
+        return books.remove(isbnKey, version);
+    }
+
+    public int getBookCount() {
+        return books.size();
+    }
+
+    /**
+     * Store a member, returning false if the ID is already present
+     */
+    public boolean addMember(Member member, long version) {
+        String[] fields = new String[MemberRecord.FIELD_COUNT];
+        fields[MemberRecord.ID] = member.getId();
+        fields[MemberRecord.NAME] = member.getName();
+        fields[MemberRecord.EMAIL] = member.getEmail();
+        fields[MemberRecord.PHONE] = member.getPhone();
+        return members.insert(fields, 0, version) >= 0;
+    }
+
+    /**
+     * Get a copy of the member with this ID, or null
+     */
+    public Member getMember(String id) {
+        long address = members.find(id);
+        return address < 0 ? null : new MemberRecord(members, members.currentSlabs()).moveTo(address).toMember();
+    }
+
+    /**
+     * Get the record address of the member with this ID, or -1
+     */
+    public long findMemberAddress(String id) {
+        return members.find(id);
+    }
+
+    public boolean removeMember(String id, long version) {
+        return members.remove(id, version);
+    }
+
+    public int getMemberCount() {
+        return members.size();
+    }
+
+    /**
+     * Get the number of bytes reserved outside the heap for records and indexes
+     */
+    public long getOffHeapBytes() {
+        return books.reservedBytes() + members.reservedBytes();
+    }
+
+    RecordStore books() {
+        return books;
+    }
+
+    RecordStore members() {
+        return members;
+    }
+
+    SnapshotRegistry snapshots() {
+        return snapshots;
+    }
+}
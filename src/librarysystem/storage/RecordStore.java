@@ -0,0 +1,516 @@
+/**
+ * This class keeps records made of a fixed number of string fields and one
+ * int outside the Java heap, together with an off-heap hash index on the
+ * first field. Large collections therefore add almost nothing for the
+ * garbage collector to trace, however many records they hold.
+ *
+ * A store can instead be keyed on a long (for books, the packed ISBN).
+ * The key is then hashed with a reversible mix, so equal hashes mean equal
+ * keys and lookups never have to read the record to confirm a match.
+ *
+ * Records are appended to slabs that start small and double up to a cap.
+ * A record is addressed by a long holding its slab number in the high
+ * 32 bits and its offset in the low 32 bits. Records are never modified
+ * after they are written, except that removal stamps the version at which
+ * the record disappeared and lending pins it.
+ *
+ * The space of a removed record is reused by a later insert that fits in
+ * it, at most twice over, once no live snapshot can still see the record.
+ * A reused slot keeps its length so scans still step over it correctly.
+ * Pinned records, which the loan log points at, are never reused, so they
+ * stay as part of the loan history. Add and remove churn of books that
+ * were never lent therefore does not grow the slabs.
+ *
+ * Record layout (native byte order, 8-byte aligned):
+ *   int length | int extra | long createdVersion | long removedVersion |
+ *   long key | int flags | short byteLength[fieldCount] | UTF-8 bytes
+ *
+ * The index is an open-addressing table of (hash, address + 1) pairs with
+ * linear probing and backward-shift deletion, so it never needs tombstones.
+ *
+ * Writes, removals and index lookups must come from one thread at a time.
+ * Scans may run on any thread against a published watermark: the slabs
+ * and fill level as of an earlier insert, read together with a version,
+ * see exactly the records that existed at that version.
+ */
+package librarysystem.storage;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.LongConsumer;
+
+class RecordStore {
+    private static final long FIRST_SLAB_SIZE = 1L << 20;
+    private static final long MAX_SLAB_SIZE = 1L << 26;
+    private static final int LENGTH = 0;
+    private static final int EXTRA = 4;
+    private static final int CREATED = 8;
+    private static final int REMOVED = 16;
+    private static final int KEY = 24;
+    private static final int FLAGS = 32;
+    private static final int FIELD_LENGTHS = 36;
+    private static final int MAX_FIELD_BYTES = 0xFFFF;
+    private static final int PINNED = 1;
+
+    // Removal stamps of reusable slots change under scanning threads
+    private static final VarHandle STAMP = MethodHandles.memorySegmentViewVarHandle(ValueLayout.JAVA_LONG);
+
+    private static final int ENTRY_BYTES = 16;
+    private static final int INITIAL_TABLE_CAPACITY = 1 << 10;
+
+    private final int fieldCount;
+    private final boolean numericKeys;
+    private final int dataStart;
+    private final SnapshotRegistry snapshots;
+
+    // Unpinned removed records in removal order, waiting for older snapshots to go
+    private final ArrayDeque<long[]> retired = new ArrayDeque<>();
+    // Addresses of slots ready for reuse, by slot length
+    private final TreeMap<Integer, ArrayDeque<Long>> free = new TreeMap<>();
+
+    private MemorySegment[] slabs = new MemorySegment[4];
+    private long[] slabUsed = new long[4];
+    private int slabCount;
+
+    // What scanning threads may read; replaced after every insert
+    private volatile Watermark watermark;
+
+    private MemorySegment table;
+    private int tableMask;
+    private int size;
+
+    RecordStore(int fieldCount, boolean numericKeys, SnapshotRegistry snapshots) {
+        this.fieldCount = fieldCount;
+        this.numericKeys = numericKeys;
+        this.dataStart = FIELD_LENGTHS + 2 * fieldCount;
+        this.snapshots = snapshots;
+        this.table = allocate((long) INITIAL_TABLE_CAPACITY * ENTRY_BYTES);
+        this.tableMask = INITIAL_TABLE_CAPACITY - 1;
+        this.watermark = new Watermark(slabs, slabUsed, 0, 0);
+    }
+
+    /**
+     * Append a record keyed on its first field, created at the given
+     * version, and return its address, or -1 if the key is already present
+     */
+    long insert(String[] fields, int extra, long version) {
+        byte[] key = fields[0].getBytes(StandardCharsets.UTF_8);
+        long hash = hash(fields[0]);
+        if (find(key, hash) >= 0) {
+            return -1;
+        }
+        return append(hash, 0, key, fields, extra, version);
+    }
+
+    /**
+     * Append a record to a store keyed on longs, returning -1 if the key is
+     * already present. The first field should hold the key's display form.
+     */
+    long insert(long key, String[] fields, int extra, long version) {
+        long hash = mix(key);
+        if (find(null, hash) >= 0) {
+            return -1;
+        }
+        return append(hash, key, fields[0].getBytes(StandardCharsets.UTF_8), fields, extra, version);
+    }
+
+    private long append(long hash, long numericKey, byte[] key, String[] fields, int extra, long version) {
+        byte[][] encoded = new byte[fieldCount][];
+        int dataLength = 0;
+        for (int i = 0; i < fieldCount; i++) {
+            encoded[i] = i == 0 ? key : fields[i].getBytes(StandardCharsets.UTF_8);
+            if (encoded[i].length > MAX_FIELD_BYTES) {
+                throw new IllegalArgumentException("Field is too long to store");
+            }
+            dataLength += encoded[i].length;
+        }
+        int length = (dataStart + dataLength + 7) & ~7;
+
+        long address = reusableSlot(length);
+        if (address >= 0) {
+            // Snapshots that still walk over the slot skip it: they either read
+            // the old removal stamp or, after the release below, the new creation
+            MemorySegment slab = slab(address);
+            long offset = offset(address);
+            slab.set(ValueLayout.JAVA_LONG, offset + CREATED, version);
+            write(slab, offset, extra, numericKey, encoded);
+            STAMP.setRelease(slab, offset + REMOVED, 0L);
+        } else {
+            MemorySegment slab = slabWithRoom(length);
+            long offset = slabUsed[slabCount - 1];
+            slab.set(ValueLayout.JAVA_INT, offset + LENGTH, length);
+            slab.set(ValueLayout.JAVA_LONG, offset + CREATED, version);
+            slab.set(ValueLayout.JAVA_LONG, offset + REMOVED, 0L);
+            write(slab, offset, extra, numericKey, encoded);
+            slabUsed[slabCount - 1] = offset + length;
+            watermark = new Watermark(slabs, slabUsed, slabCount, offset + length);
+            address = ((long) (slabCount - 1) << 32) | offset;
+        }
+
+        indexPut(hash, address);
+        return address;
+    }
+
+    private void write(MemorySegment slab, long offset, int extra, long numericKey, byte[][] encoded) {
+        slab.set(ValueLayout.JAVA_INT, offset + EXTRA, extra);
+        slab.set(ValueLayout.JAVA_LONG, offset + KEY, numericKey);
+        slab.set(ValueLayout.JAVA_INT, offset + FLAGS, 0);
+        long position = offset + dataStart;
+        for (int i = 0; i < fieldCount; i++) {
+            slab.set(ValueLayout.JAVA_SHORT, offset + FIELD_LENGTHS + 2L * i, (short) encoded[i].length);
+            MemorySegment.copy(encoded[i], 0, slab, ValueLayout.JAVA_BYTE, position, encoded[i].length);
+            position += encoded[i].length;
+        }
+    }
+
+    /**
+     * Take a free slot that fits the length without wasting more than half
+     * of it, or return -1
+     */
+    private long reusableSlot(int length) {
+        if (!retired.isEmpty()) {
+            // A slot is safe once every live snapshot reads at or after its removal
+            long oldest = snapshots.oldestVersion();
+            while (!retired.isEmpty() && retired.peek()[1] <= oldest) {
+                long address = retired.poll()[0];
+                int slotLength = slab(address).get(ValueLayout.JAVA_INT, offset(address) + LENGTH);
+                free.computeIfAbsent(slotLength, k -> new ArrayDeque<>()).push(address);
+            }
+        }
+
+        Map.Entry<Integer, ArrayDeque<Long>> fit = free.ceilingEntry(length);
+        if (fit == null || fit.getKey() > 2 * length) {
+            return -1;
+        }
+        long address = fit.getValue().pop();
+        if (fit.getValue().isEmpty()) {
+            free.remove(fit.getKey());
+        }
+        return address;
+    }
+
+    /**
+     * Keep a record's space from ever being reused, because something
+     * outside the store holds its address
+     */
+    void pin(long address) {
+        slab(address).set(ValueLayout.JAVA_INT, offset(address) + FLAGS, PINNED);
+    }
+
+    /**
+     * Get the address of the record with this key, or -1
+     */
+    long find(String key) {
+        return find(key.getBytes(StandardCharsets.UTF_8), hash(key));
+    }
+
+    /**
+     * Get the address of the record with this long key, or -1
+     */
+    long find(long key) {
+        return find(null, mix(key));
+    }
+
+    /**
+     * Remove the record with this key as of the given version, returning
+     * false if there is none
+     */
+    boolean remove(String key, long version) {
+        return remove(key.getBytes(StandardCharsets.UTF_8), hash(key), version);
+    }
+
+    /**
+     * Remove the record with this long key as of the given version,
+     * returning false if there is none
+     */
+    boolean remove(long key, long version) {
+        return remove(null, mix(key), version);
+    }
+
+    private boolean remove(byte[] bytes, long hash, long version) {
+        int slot = (int) (hash & tableMask);
+        while (true) {
+            long stored = table.get(ValueLayout.JAVA_LONG, (long) slot * ENTRY_BYTES + 8);
+            if (stored == 0) {
+                return false;
+            }
+            if (table.get(ValueLayout.JAVA_LONG, (long) slot * ENTRY_BYTES) == hash
+                    && (numericKeys || keyEquals(stored - 1, bytes))) {
+                long address = stored - 1;
+                // An aligned 8-byte store, so concurrent scans see either 0 or the version
+                slab(address).set(ValueLayout.JAVA_LONG, offset(address) + REMOVED, version);
+                indexDelete(slot);
+                if ((slab(address).get(ValueLayout.JAVA_INT, offset(address) + FLAGS) & PINNED) == 0) {
+                    retired.add(new long[]{address, version});
+                }
+                return true;
+            }
+            slot = (slot + 1) & tableMask;
+        }
+    }
+
+    /**
+     * Get the latest published watermark for scanning from any thread
+     */
+    Watermark watermark() {
+        return watermark;
+    }
+
+    /**
+     * Visit, in insertion order, the address of every record below the
+     * watermark that existed at the given version
+     */
+    void forEach(Watermark mark, long version, LongConsumer action) {
+        for (int s = 0; s < mark.slabCount; s++) {
+            MemorySegment slab = mark.slabs[s];
+            long used = s == mark.slabCount - 1 ? mark.lastSlabUsed : mark.slabUsed[s];
+            long offset = 0;
+            while (offset < used) {
+                int length = slab.get(ValueLayout.JAVA_INT, offset + LENGTH);
+                // Read before the creation stamp, which a reused slot changes first
+                long removed = (long) STAMP.getAcquire(slab, offset + REMOVED);
+                if (slab.get(ValueLayout.JAVA_LONG, offset + CREATED) <= version
+                        && (removed == 0 || removed > version)) {
+                    action.accept(((long) s << 32) | offset);
+                }
+                offset += length;
+            }
+        }
+    }
+
+    /**
+     * Check whether a record existed at the given version
+     */
+    boolean existsAt(MemorySegment[] from, long address, long version) {
+        MemorySegment slab = from[slabIndex(address)];
+        long offset = offset(address);
+        long removed = (long) STAMP.getAcquire(slab, offset + REMOVED);
+        return slab.get(ValueLayout.JAVA_LONG, offset + CREATED) <= version && (removed == 0 || removed > version);
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Get the number of bytes reserved outside the heap
+     */
+    long reservedBytes() {
+        long total = table.byteSize();
+        for (int s = 0; s < slabCount; s++) {
+            total += slabs[s].byteSize();
+        }
+        return total;
+    }
+
+    /*
+     * Record accessors take the slab array to read from, so that scanning
+     * threads use the one from their watermark rather than the writer's.
+     */
+
+    String field(MemorySegment[] from, long address, int field) {
+        int length = fieldLength(from, address, field);
+        byte[] bytes = new byte[length];
+        MemorySegment.copy(from[slabIndex(address)], ValueLayout.JAVA_BYTE,
+                fieldOffset(from, address, field), bytes, 0, length);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    long key(MemorySegment[] from, long address) {
+        return from[slabIndex(address)].get(ValueLayout.JAVA_LONG, offset(address) + KEY);
+    }
+
+    int extra(MemorySegment[] from, long address) {
+        return from[slabIndex(address)].get(ValueLayout.JAVA_INT, offset(address) + EXTRA);
+    }
+
+    /**
+     * Copy a field's UTF-8 bytes into the buffer, growing it if needed,
+     * and return the buffer; the length is given by fieldLength
+     */
+    byte[] fieldBytes(MemorySegment[] from, long address, int field, byte[] buffer) {
+        int length = fieldLength(from, address, field);
+        byte[] target = buffer.length >= length ? buffer : new byte[Math.max(length, buffer.length * 2)];
+        MemorySegment.copy(from[slabIndex(address)], ValueLayout.JAVA_BYTE,
+                fieldOffset(from, address, field), target, 0, length);
+        return target;
+    }
+
+    int fieldLength(MemorySegment[] from, long address, int field) {
+        return Short.toUnsignedInt(from[slabIndex(address)].get(ValueLayout.JAVA_SHORT,
+                offset(address) + FIELD_LENGTHS + 2L * field));
+    }
+
+    /**
+     * Get the slab array the writer currently uses, for lookups made under its lock
+     */
+    MemorySegment[] currentSlabs() {
+        return slabs;
+    }
+
+    private long fieldOffset(MemorySegment[] from, long address, int field) {
+        long position = offset(address) + dataStart;
+        for (int i = 0; i < field; i++) {
+            position += fieldLength(from, address, i);
+        }
+        return position;
+    }
+
+    private long find(byte[] key, long hash) {
+        int slot = (int) (hash & tableMask);
+        while (true) {
+            long stored = table.get(ValueLayout.JAVA_LONG, (long) slot * ENTRY_BYTES + 8);
+            if (stored == 0) {
+                return -1;
+            }
+            if (table.get(ValueLayout.JAVA_LONG, (long) slot * ENTRY_BYTES) == hash
+                    && (numericKeys || keyEquals(stored - 1, key))) {
+                return stored - 1;
+            }
+            slot = (slot + 1) & tableMask;
+        }
+    }
+
+    private boolean keyEquals(long address, byte[] key) {
+        if (fieldLength(slabs, address, 0) != key.length) {
+            return false;
+        }
+        long start = offset(address) + dataStart;
+        return MemorySegment.mismatch(slab(address), start, start + key.length,
+                MemorySegment.ofArray(key), 0, key.length) == -1;
+    }
+
+    private void indexPut(long hash, long address) {
+        if ((size + 1) * 2L > tableMask + 1L) {
+            resizeTable();
+        }
+        int slot = (int) (hash & tableMask);
+        while (table.get(ValueLayout.JAVA_LONG, (long) slot * ENTRY_BYTES + 8) != 0) {
+            slot = (slot + 1) & tableMask;
+        }
+        table.set(ValueLayout.JAVA_LONG, (long) slot * ENTRY_BYTES, hash);
+        table.set(ValueLayout.JAVA_LONG, (long) slot * ENTRY_BYTES + 8, address + 1);
+        size++;
+    }
+
+    /**
+     * Empty a slot and shift later entries of the same probe run back into it
+     */
+    private void indexDelete(int slot) {
+        int hole = slot;
+        int next = slot;
+        while (true) {
+            next = (next + 1) & tableMask;
+            long stored = table.get(ValueLayout.JAVA_LONG, (long) next * ENTRY_BYTES + 8);
+            if (stored == 0) {
+                break;
+            }
+            long hash = table.get(ValueLayout.JAVA_LONG, (long) next * ENTRY_BYTES);
+            int home = (int) (hash & tableMask);
+            // The entry may move into the hole only if its home slot is not between the hole and itself
+            boolean stays = hole <= next ? (home > hole && home <= next) : (home > hole || home <= next);
+            if (!stays) {
+                table.set(ValueLayout.JAVA_LONG, (long) hole * ENTRY_BYTES, hash);
+                table.set(ValueLayout.JAVA_LONG, (long) hole * ENTRY_BYTES + 8, stored);
+                hole = next;
+            }
+        }
+        table.set(ValueLayout.JAVA_LONG, (long) hole * ENTRY_BYTES, 0L);
+        table.set(ValueLayout.JAVA_LONG, (long) hole * ENTRY_BYTES + 8, 0L);
+        size--;
+    }
+
+    private void resizeTable() {
+        MemorySegment old = table;
+        int oldCapacity = tableMask + 1;
+        int capacity = oldCapacity * 2;
+        table = allocate((long) capacity * ENTRY_BYTES);
+        tableMask = capacity - 1;
+        for (int i = 0; i < oldCapacity; i++) {
+            long stored = old.get(ValueLayout.JAVA_LONG, (long) i * ENTRY_BYTES + 8);
+            if (stored != 0) {
+                long hash = old.get(ValueLayout.JAVA_LONG, (long) i * ENTRY_BYTES);
+                int slot = (int) (hash & tableMask);
+                while (table.get(ValueLayout.JAVA_LONG, (long) slot * ENTRY_BYTES + 8) != 0) {
+                    slot = (slot + 1) & tableMask;
+                }
+                table.set(ValueLayout.JAVA_LONG, (long) slot * ENTRY_BYTES, hash);
+                table.set(ValueLayout.JAVA_LONG, (long) slot * ENTRY_BYTES + 8, stored);
+            }
+        }
+    }
+
+    private MemorySegment slabWithRoom(int length) {
+        if (slabCount > 0 && slabUsed[slabCount - 1] + length <= slabs[slabCount - 1].byteSize()) {
+            return slabs[slabCount - 1];
+        }
+        long slabSize = slabCount == 0 ? FIRST_SLAB_SIZE
+                : Math.min(MAX_SLAB_SIZE, slabs[slabCount - 1].byteSize() * 2);
+        if (slabCount == slabs.length) {
+            slabs = Arrays.copyOf(slabs, slabCount * 2);
+            slabUsed = Arrays.copyOf(slabUsed, slabCount * 2);
+        }
+        slabs[slabCount] = allocate(Math.max(slabSize, length));
+        slabUsed[slabCount] = 0;
+        return slabs[slabCount++];
+    }
+
+    private MemorySegment slab(long address) {
+        return slabs[slabIndex(address)];
+    }
+
+    private static int slabIndex(long address) {
+        return (int) (address >>> 32);
+    }
+
+    private static long offset(long address) {
+        return address & 0xFFFFFFFFL;
+    }
+
+    /**
+     * Each allocation gets its own automatic arena, so a replaced index
+     * table is freed once it is no longer referenced
+     */
+    private static MemorySegment allocate(long bytes) {
+        return Arena.ofAuto().allocate(bytes, 8);
+    }
+
+    private static long hash(String key) {
+        return mix(key.hashCode());
+    }
+
+    /**
+     * Spread the bits of a key; both steps can be undone, so distinct keys never collide
+     */
+    private static long mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 29);
+    }
+
+    /**
+     * The slabs and how far they were filled as of one insert. Slab
+     * entries below slabCount and the fill levels of all but the last
+     * slab never change once written, so the arrays can be shared.
+     */
+    static final class Watermark {
+        final MemorySegment[] slabs;
+        final long[] slabUsed;
+        final int slabCount;
+        final long lastSlabUsed;
+
+        Watermark(MemorySegment[] slabs, long[] slabUsed, int slabCount, long lastSlabUsed) {
+            this.slabs = slabs;
+            this.slabUsed = slabUsed;
+            this.slabCount = slabCount;
+            this.lastSlabUsed = lastSlabUsed;
+        }
+    }
+}
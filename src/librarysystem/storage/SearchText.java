@@ -0,0 +1,48 @@
+/**
+ * This class matches search text against stored UTF-8 bytes. Bytes of
+ * multi-byte characters are never in the ASCII range, so an ASCII search
+ * text can be matched byte by byte with ASCII case folding.
+ */
+package librarysystem.storage;
+
+final class SearchText {
+    private SearchText() {
+    }
+
+    static boolean isAscii(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Check whether the first length bytes contain the ASCII text, ignoring case
+     */
+    static boolean containsIgnoreAsciiCase(byte[] bytes, int length, String text) {
+        int n = text.length();
+        if (n == 0) {
+            return true;
+        }
+        byte first = lower((byte) text.charAt(0));
+        for (int i = 0; i + n <= length; i++) {
+            if (lower(bytes[i]) != first) {
+                continue;
+            }
+            int j = 1;
+            while (j < n && lower(bytes[i + j]) == lower((byte) text.charAt(j))) {
+                j++;
+            }
+            if (j == n) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static byte lower(byte b) {
+        return b >= 'A' && b <= 'Z' ? (byte) (b + ('a' - 'A')) : b;
+    }
+}
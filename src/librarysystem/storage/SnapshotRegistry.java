@@ -0,0 +1,66 @@
+/**
+ * This class tracks the versions that live snapshots read at, so that the
+ * space of a removed record is only reused once no snapshot can still see
+ * the record. Snapshots are held weakly and drop out once they have been
+ * garbage collected, so callers never have to close them.
+ *
+ * A snapshot registers before it reads the library version. The writer
+ * checks under the same lock, so it either sees the registration or the
+ * snapshot reads a version at which the record is already gone.
+ */
+package librarysystem.storage;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.HashSet;
+import java.util.Set;
+
+final class SnapshotRegistry {
+    // Version of a snapshot that has registered but not yet read its version
+    private static final long PENDING = Long.MIN_VALUE;
+
+    private final Set<Entry> entries = new HashSet<>();
+    private final ReferenceQueue<Object> collected = new ReferenceQueue<>();
+
+    /**
+     * Register a snapshot before it reads its version
+     */
+    synchronized Entry register(Object snapshot) {
+        expunge();
+        Entry entry = new Entry(snapshot, collected);
+        entries.add(entry);
+        return entry;
+    }
+
+    /**
+     * Get the oldest version a live snapshot may read at, or Long.MAX_VALUE
+     * when there are none
+     */
+    synchronized long oldestVersion() {
+        expunge();
+        long oldest = Long.MAX_VALUE;
+        for (Entry entry : entries) {
+            oldest = Math.min(oldest, entry.version);
+        }
+        return oldest;
+    }
+
+    private void expunge() {
+        Object entry;
+        while ((entry = collected.poll()) != null) {
+            entries.remove(entry);
+        }
+    }
+
+    static final class Entry extends WeakReference<Object> {
+        private volatile long version = PENDING;
+
+        private Entry(Object snapshot, ReferenceQueue<Object> queue) {
+            super(snapshot, queue);
+        }
+
+        void setVersion(long version) {
+            this.version = version;
+        }
+    }
+}
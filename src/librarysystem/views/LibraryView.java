@@ -4,6 +4,7 @@
  */
 package librarysystem.views;
 
+import librarysystem.fines.Fine;
 import librarysystem.models.Book;
 import librarysystem.models.Member;
 import librarysystem.models.BookLoan;
@@ -20,7 +21,16 @@ public class LibraryView {
         System.out.println("2. Member Management");
         System.out.println("3. Loan Management");
         System.out.println("4. Search");
-        System.out.println("5. Exit");
+        System.out.println("5. Export Data");
+        System.out.println("6. Exit");
+    }
+
+    public void displayExportMenu() {
+        System.out.println("\n=== Export Data ===");
+        System.out.println("1. Books");
+        System.out.println("2. Members");
+        System.out.println("3. Active Loans");
+        System.out.println("4. Loan History");
     }
 
     public void displayBookManagementMenu() {
@@ -44,7 +54,10 @@ public class LibraryView {
         System.out.println("1. Issue Book");
         System.out.println("2. Return Book");
         System.out.println("3. View All Current Loans");
-        System.out.println("4. Back to Main Menu");
+        System.out.println("4. View Overdue Fines");
+        System.out.println("5. Member Loan History");
+        System.out.println("6. Set Member Loan Limit");
+        System.out.println("7. Back to Main Menu");
     }
 
     public void displaySearchMenu() {
@@ -52,17 +65,21 @@ public class LibraryView {
         System.out.println("1. Search Book by Title");
         System.out.println("2. Search Book by Author");
         System.out.println("3. Search Member by ID");
-        System.out.println("4. Back to Main Menu");
+        System.out.println("4. Find Member by Email, Phone or Name");
+        System.out.println("5. Autocomplete");
+        System.out.println("6. Query Books");
+        System.out.println("7. Members Who Borrowed This Also Borrowed");
+        System.out.println("8. Back to Main Menu");
     }
 
     public void displayBooks(List<Book> books) {
         System.out.println("\nBooks:");
-        System.out.printf("%-10s %-30s %-20s %-15s %-6s%n",
+        System.out.printf("%-14s %-30s %-20s %-15s %-6s%n",
                 "ISBN", "Title", "Author", "Category", "Year");
-        System.out.println("-------------------------------------------------------------------------------------");
+        System.out.println("-----------------------------------------------------------------------------------------");
 
         for (Book book : books) {
-            System.out.printf("%-10s %-30s %-20s %-15s %-6d%n",
+            System.out.printf("%-14s %-30s %-20s %-15s %-6d%n",
                     book.getIsbn(),
                     truncateString(book.getTitle(), 28),
                     truncateString(book.getAuthor(), 18),
@@ -105,15 +122,15 @@ public class LibraryView {
 
     public void displayLoans(List<BookLoan> loans) {
         System.out.println("\nLoans:");
-        System.out.printf("%-10s %-30s %-20s %-12s %-12s%n",
+        System.out.printf("%-14s %-30s %-20s %-12s %-12s%n",
                 "Book ISBN", "Book Title", "Member", "Issue Date", "Return Date");
-        System.out.println("-------------------------------------------------------------------------------------");
+        System.out.println("-----------------------------------------------------------------------------------------");
 
         for (BookLoan loan : loans) {
             String returnDate = loan.getReturnDate() == null ? "Not returned" :
                     loan.getReturnDate().format(dateFormat);
 
-            System.out.printf("%-10s %-30s %-20s %-12s %-12s%n",
+            System.out.printf("%-14s %-30s %-20s %-12s %-12s%n",
                     loan.getBook().getIsbn(),
                     truncateString(loan.getBook().getTitle(), 28),
                     truncateString(loan.getMember().getName(), 18),
@@ -122,6 +139,41 @@ public class LibraryView {
         }
     }
 
+    public void displayFines(List<Fine> fines) {
+        System.out.println("\nLargest Fines:");
+        System.out.printf("%-14s %-30s %-20s %-12s %8s %10s%n",
+                "Book ISBN", "Book Title", "Member", "Issue Date", "Days Over", "Fine");
+        System.out.println("---------------------------------------------------------------------------------------------------");
+
+        for (Fine fine : fines) {
+            BookLoan loan = fine.getLoan();
+            System.out.printf("%-14s %-30s %-20s %-12s %8d %10s%n",
+                    loan.getBook().getIsbn(),
+                    truncateString(loan.getBook().getTitle(), 28),
+                    truncateString(loan.getMember().getName(), 18),
+                    loan.getIssueDate().format(dateFormat),
+                    fine.getOverdueDays(),
+                    formatCents(fine.getCents()));
+        }
+    }
+
+    /**
+     * Format an amount in cents as currency, e.g. 1250 as 12.50
+     */
+    public String formatCents(long cents) {
+        return String.format("%d.%02d", cents / 100, cents % 100);
+    }
+
+    public void displaySuggestions(String heading, List<String> suggestions) {
+        if (suggestions.isEmpty()) {
+            return;
+        }
+        System.out.println("\n" + heading + ":");
+        for (String suggestion : suggestions) {
+            System.out.println("  " + suggestion);
+        }
+    }
+
     public void displayMessage(String message) {
         System.out.println(message);
     }